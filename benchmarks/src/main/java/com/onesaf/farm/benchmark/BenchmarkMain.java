@@ -0,0 +1,118 @@
+package com.onesaf.farm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 基准测试入口
+ * <p>
+ * 运行全部基准测试并启用GC分析器（{@code gc.alloc.rate.norm} 为每次操作分配的字节数）。
+ * 查找测试依次以1、2、4……直到CPU核数个线程运行，所有结果合并写入一个JSON文件，便于比较不同版本。
+ * <pre>
+ * java -jar target/benchmarks.jar [包含的测试正则] [-o 结果文件] [-t 线程数列表，如1,2,8]
+ * </pre>
+ * 以其他 {@code -} 开头的参数时交给JMH自带的命令行处理。
+ */
+public final class BenchmarkMain {
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = ".*";
+        String result = DEFAULT_RESULT;
+        int[] threads = defaultThreads();
+        for (int i = 0; i < args.length; i++) {
+            if ("-o".equals(args[i]) && i + 1 < args.length) {
+                result = args[++i];
+            } else if ("-t".equals(args[i]) && i + 1 < args.length) {
+                threads = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (args[i].startsWith("-")) {
+                org.openjdk.jmh.Main.main(args);
+                return;
+            } else {
+                include = args[i];
+            }
+        }
+
+        List<RunResult> results = new ArrayList<>();
+
+        // 解析类测试单线程运行
+        if (matches(include, ReadBenchmark.class, SectionBenchmark.class)) {
+            results.addAll(new Runner(options(include)
+                    .exclude(LookupBenchmark.class.getName())
+                    .build()).run());
+        }
+
+        // 查找测试按线程数依次运行
+        if (matches(include, LookupBenchmark.class)) {
+            for (int count : threads) {
+                results.addAll(new Runner(options(include)
+                        .exclude(ReadBenchmark.class.getName())
+                        .exclude(SectionBenchmark.class.getName())
+                        .threads(count)
+                        .build()).run());
+            }
+        }
+
+        try (PrintStream out = new PrintStream(result, StandardCharsets.UTF_8)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("结果已写入: " + result + "，共" + results.size() + "项 (线程数: "
+                + Arrays.stream(threads).mapToObj(Integer::toString).collect(Collectors.joining(",")) + ")");
+    }
+
+    private static ChainedOptionsBuilder options(String include) {
+        return new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Dlog4j.configurationFile=log4j2-benchmark.xml");
+    }
+
+    /**
+     * 正则表达式是否匹配某个类中的测试，匹配方式与JMH相同：在完整的测试名中查找
+     */
+    private static boolean matches(String include, Class<?>... benchmarks) {
+        Pattern pattern = Pattern.compile(include);
+        for (Class<?> benchmark : benchmarks) {
+            for (Method method : benchmark.getMethods()) {
+                if (method.isAnnotationPresent(Benchmark.class)
+                        && pattern.matcher(benchmark.getName() + "." + method.getName()).find()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 1, 2, 4 …… 直到CPU核数
+     */
+    private static int[] defaultThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> threads = new ArrayList<>();
+        for (int count = 1; count < processors; count *= 2) {
+            threads.add(count);
+        }
+        threads.add(processors);
+        return threads.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
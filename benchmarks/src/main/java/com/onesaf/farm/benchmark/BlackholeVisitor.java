@@ -0,0 +1,66 @@
+package com.onesaf.farm.benchmark;
+
+import com.onesaf.farm.io.FarmVisitor;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 把所有回调参数交给 {@link Blackhole}，防止解析被JIT优化掉
+ */
+final class BlackholeVisitor implements FarmVisitor {
+    private final Blackhole blackhole;
+
+    BlackholeVisitor(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void visitInt32(int row, int code, int offset, int defaultValue, int minValue, int maxValue) {
+        blackhole.consume(offset + defaultValue + minValue + maxValue);
+    }
+
+    @Override
+    public void visitFloat64(int row, int code, int offset, double defaultValue, double minValue, double maxValue) {
+        blackhole.consume(offset);
+        blackhole.consume(defaultValue + minValue + maxValue);
+    }
+
+    @Override
+    public void visitString(int row, int code, int offset) {
+        blackhole.consume(offset);
+    }
+
+    @Override
+    public void visitEnumeration(int row, int code, int offset, int eaCode, int defaultCode,
+                                 int[] validCodes, int validCount) {
+        blackhole.consume(offset + eaCode + defaultCode + validCount);
+        blackhole.consume(validCodes);
+    }
+
+    @Override
+    public void visitBoolean(int row, int code, int offset, boolean defaultValue) {
+        blackhole.consume(offset);
+        blackhole.consume(defaultValue);
+    }
+
+    @Override
+    public void visitUUID(int row, int code, int offset) {
+        blackhole.consume(offset);
+    }
+
+    @Override
+    public void visitLabel(byte[] utf8, int length, int geometry, int category) {
+        blackhole.consume(utf8);
+        blackhole.consume(length + geometry + category);
+    }
+
+    @Override
+    public void visitFeature(int key, int category, int code, int geometry,
+                             int usageBitmask, int precedence, int attributesOverlaySize) {
+        blackhole.consume(key + category + code + geometry + usageBitmask + precedence + attributesOverlaySize);
+    }
+
+    @Override
+    public void visitAttribute(int key, int code, int dataType, int units, int editability) {
+        blackhole.consume(key + code + dataType + units + editability);
+    }
+}
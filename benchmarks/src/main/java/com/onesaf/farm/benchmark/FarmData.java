@@ -0,0 +1,111 @@
+package com.onesaf.farm.benchmark;
+
+import com.onesaf.farm.io.FarmSource;
+import com.onesaf.farm.io.FarmStreamReader;
+import com.onesaf.farm.io.FarmVisitor;
+import com.onesaf.farm.util.ByteBufferBinaryReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 基准测试使用的FARM数据
+ * <p>
+ * 内置数据是打包在farm-parser中的 {@code farm.dat}；大文件由内置数据的FARM表行重复若干次得到，
+ * 标签、特征和属性映射保持不变，因此只有FARM表部分随倍数增大。
+ */
+final class FarmData {
+    // FARM表行数以UInt16存储
+    private static final int MAX_ROWS = 0xFFFF;
+
+    private static byte[] bundled;
+
+    final byte[] bytes;
+    final ByteOrder byteOrder;
+    final int rows;
+    final int[] codes;
+
+    // 各段的起始位置
+    final int tableStart;
+    final int labelsStart;
+    final int featuresStart;
+    final int attributesStart;
+
+    private FarmData(byte[] bytes) throws IOException {
+        this.bytes = bytes;
+        FarmStreamReader stream = new FarmStreamReader(new ByteBufferBinaryReader(ByteBuffer.wrap(bytes), ByteOrder.LITTLE_ENDIAN));
+        FarmVisitor none = new FarmVisitor() {
+        };
+        stream.readHeader(none);
+        this.byteOrder = stream.getReader().getByteOrder();
+        this.codes = stream.readTableDimensions(none);
+        this.tableStart = stream.getReader().position();
+        int[] rowPositions = stream.scanTableRows();
+        this.rows = rowPositions.length - 1;
+        this.labelsStart = stream.getReader().position();
+        stream.readLabels(none);
+        this.featuresStart = stream.getReader().position();
+        stream.readFeatures(none);
+        this.attributesStart = stream.getReader().position();
+    }
+
+    /**
+     * 内置数据，{@code factor} 大于1时把FARM表的行重复 {@code factor} 次
+     */
+    static FarmData load(int factor) {
+        try {
+            FarmData data = new FarmData(bundled());
+            return factor <= 1 ? data : new FarmData(data.replicateRows(factor));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    FarmSource source() {
+        return FarmSource.bytes(bytes);
+    }
+
+    /**
+     * 从指定位置开始读取的读取器，字节序与文件相同
+     */
+    ByteBufferBinaryReader reader(int position) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(position);
+        return new ByteBufferBinaryReader(buffer, byteOrder);
+    }
+
+    private byte[] replicateRows(int factor) {
+        if ((long) rows * factor > MAX_ROWS) {
+            throw new IllegalArgumentException("行数超过" + MAX_ROWS + ": " + rows + " x " + factor);
+        }
+        int tableBytes = labelsStart - tableStart;
+        ByteBuffer out = ByteBuffer.allocate(bytes.length + tableBytes * (factor - 1)).order(byteOrder);
+        out.put(bytes, 0, tableStart);
+        // 行数位于字节序标记和版本之后
+        out.putShort(8, (short) (rows * factor));
+        for (int i = 0; i < factor; i++) {
+            out.put(bytes, tableStart, tableBytes);
+        }
+        out.put(bytes, labelsStart, bytes.length - labelsStart);
+        return out.array();
+    }
+
+    private static synchronized byte[] bundled() throws IOException {
+        if (bundled == null) {
+            try (InputStream in = FarmData.class.getClassLoader().getResourceAsStream("farm.dat")) {
+                if (in == null) {
+                    throw new IOException("找不到类路径资源: farm.dat");
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                in.transferTo(out);
+                bundled = out.toByteArray();
+            }
+        }
+        return Arrays.copyOf(bundled, bundled.length);
+    }
+}
@@ -0,0 +1,114 @@
+package com.onesaf.farm.benchmark;
+
+import com.onesaf.farm.FarmSnapshot;
+import com.onesaf.farm.FeatureAttributeMapping;
+import com.onesaf.farm.model.Attribute;
+import com.onesaf.farm.model.Feature;
+import com.onesaf.farm.model.FeatureGeometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发查找特征、属性和几何类型
+ * <p>
+ * 同一份已加载的数据由所有线程共享，每个线程按自己的随机序列访问特征类别（含少量不存在的类别）。
+ * 线程数由 {@link BenchmarkMain} 依次设置为1到N，比较 {@link FeatureAttributeMapping} 和 {@link FarmSnapshot} 的扩展性。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    // 每个线程的访问序列长度，必须是2的幂
+    private static final int SEQUENCE_LENGTH = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Farm {
+        FeatureAttributeMapping mapping;
+        FarmSnapshot snapshot;
+        int categoryLimit;
+        int attributeLimit;
+
+        @Setup
+        public void setup() {
+            mapping = new FeatureAttributeMapping();
+            StringBuilder failureReason = new StringBuilder();
+            if (!mapping.read(FarmData.load(1).source(), failureReason)) {
+                throw new IllegalStateException(failureReason.toString());
+            }
+            snapshot = mapping.getSnapshot();
+            categoryLimit = snapshot.getFeatureCategoryLimit();
+            attributeLimit = Math.max(1, mapping.getFarmTable().getMaxCode() + 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int[] categories;
+        int[] attributes;
+        int next;
+
+        @Setup
+        public void setup(Farm farm, ThreadParams threads) {
+            SplittableRandom random = new SplittableRandom(threads.getThreadIndex());
+            categories = new int[SEQUENCE_LENGTH];
+            attributes = new int[SEQUENCE_LENGTH];
+            for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+                // 约3%的访问超出范围
+                categories[i] = random.nextInt(farm.categoryLimit + farm.categoryLimit / 32);
+                attributes[i] = random.nextInt(farm.attributeLimit);
+            }
+        }
+
+        int category() {
+            return categories[next++ & (SEQUENCE_LENGTH - 1)];
+        }
+
+        int attribute() {
+            return attributes[next++ & (SEQUENCE_LENGTH - 1)];
+        }
+    }
+
+    @Benchmark
+    public Feature mappingGetFeature(Farm farm, Cursor cursor) {
+        return farm.mapping.getFeature(cursor.category());
+    }
+
+    @Benchmark
+    public FeatureGeometry mappingGetFeatureGeometry(Farm farm, Cursor cursor) {
+        return farm.mapping.getFeatureGeometry(cursor.category());
+    }
+
+    @Benchmark
+    public Attribute mappingGetAttribute(Farm farm, Cursor cursor) {
+        return farm.mapping.getAttribute(cursor.attribute());
+    }
+
+    @Benchmark
+    public Feature snapshotGetFeature(Farm farm, Cursor cursor) {
+        return farm.snapshot.getFeature(cursor.category());
+    }
+
+    @Benchmark
+    public FeatureGeometry snapshotGetFeatureGeometry(Farm farm, Cursor cursor) {
+        return farm.snapshot.getFeatureGeometry(cursor.category());
+    }
+
+    @Benchmark
+    public Attribute snapshotGetAttribute(Farm farm, Cursor cursor) {
+        return farm.snapshot.getAttribute(cursor.attribute());
+    }
+}
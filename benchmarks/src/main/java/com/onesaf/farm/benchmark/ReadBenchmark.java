@@ -0,0 +1,56 @@
+package com.onesaf.farm.benchmark;
+
+import com.onesaf.farm.FarmLoadOptions;
+import com.onesaf.farm.FeatureAttributeMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整读取FARM数据：内置的farm.dat和按倍数放大的大文件，分别使用三种解码模式
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+    /**
+     * FARM表行的重复倍数，1为内置数据
+     */
+    @Param({"1", "16", "128"})
+    public int factor;
+
+    @Param({"EAGER", "PARALLEL", "LAZY"})
+    public FarmLoadOptions.DecodeMode decodeMode;
+
+    private FarmData data;
+    private FarmLoadOptions options;
+
+    @Setup
+    public void setup() {
+        data = FarmData.load(factor);
+        options = FarmLoadOptions.builder().decodeMode(decodeMode).build();
+    }
+
+    @Benchmark
+    public FeatureAttributeMapping read() {
+        FeatureAttributeMapping mapping = new FeatureAttributeMapping(options);
+        StringBuilder failureReason = new StringBuilder();
+        if (!mapping.read(data.source(), failureReason)) {
+            throw new IllegalStateException(failureReason.toString());
+        }
+        return mapping;
+    }
+}
@@ -0,0 +1,130 @@
+package com.onesaf.farm.benchmark;
+
+import com.onesaf.farm.io.FarmStreamReader;
+import com.onesaf.farm.table.FarmTable;
+import com.onesaf.farm.table.FarmTableDecoder;
+import com.onesaf.farm.util.ByteBufferBinaryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单独解码farm.dat的各段，以及不构建对象模型的流式解析
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SectionBenchmark {
+    /**
+     * FARM表行的重复倍数，1为内置数据
+     */
+    @Param({"1", "128"})
+    public int factor;
+
+    private FarmData data;
+    private int[] rowPositions;
+
+    @Setup
+    public void setup() throws IOException {
+        data = FarmData.load(factor);
+        rowPositions = new FarmTableDecoder(data.codes).scanRows(buffer(), data.tableStart, data.rows);
+    }
+
+    /**
+     * 顺序解码FARM表为列式表
+     */
+    @Benchmark
+    public FarmTable decodeTable() throws IOException {
+        ByteBufferBinaryReader reader = data.reader(data.tableStart);
+        FarmTableDecoder decoder = new FarmTableDecoder(data.codes);
+        FarmTable.Builder builder = new FarmTable.Builder(data.codes, data.rows);
+        for (int row = 0; row < data.rows; row++) {
+            decoder.decodeRow(reader, row, builder);
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * 在公共ForkJoinPool上并行解码FARM表
+     */
+    @Benchmark
+    public FarmTable decodeTableParallel() throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return FarmTableDecoder.decodeParallel(buffer(), data.codes, rowPositions, pool, pool.getParallelism());
+    }
+
+    /**
+     * 只扫描FARM表的行边界（按需解码模式的加载开销）
+     */
+    @Benchmark
+    public int[] scanTableRows() throws IOException {
+        return new FarmTableDecoder(data.codes).scanRows(buffer(), data.tableStart, data.rows);
+    }
+
+    /**
+     * 解码FARM表的单元格，只回调不构建表
+     */
+    @Benchmark
+    public void visitTableCells(Blackhole blackhole) throws IOException {
+        ByteBufferBinaryReader reader = data.reader(data.tableStart);
+        FarmTableDecoder decoder = new FarmTableDecoder(data.codes);
+        BlackholeVisitor visitor = new BlackholeVisitor(blackhole);
+        for (int row = 0; row < data.rows; row++) {
+            decoder.decodeRow(reader, row, visitor);
+        }
+    }
+
+    /**
+     * 解码特征标签和几何类型映射
+     */
+    @Benchmark
+    public void decodeLabels(Blackhole blackhole) throws IOException {
+        new FarmStreamReader(data.reader(data.labelsStart)).readLabels(new BlackholeVisitor(blackhole));
+    }
+
+    /**
+     * 解码特征映射
+     */
+    @Benchmark
+    public void decodeFeatures(Blackhole blackhole) throws IOException {
+        new FarmStreamReader(data.reader(data.featuresStart)).readFeatures(new BlackholeVisitor(blackhole));
+    }
+
+    /**
+     * 解码属性映射
+     */
+    @Benchmark
+    public void decodeAttributes(Blackhole blackhole) throws IOException {
+        new FarmStreamReader(data.reader(data.attributesStart)).readAttributes(new BlackholeVisitor(blackhole));
+    }
+
+    /**
+     * 流式解析整个文件
+     */
+    @Benchmark
+    public void stream(Blackhole blackhole) throws IOException {
+        FarmStreamReader.accept(data.source(), new BlackholeVisitor(blackhole));
+    }
+
+    private ByteBuffer buffer() {
+        return ByteBuffer.wrap(data.bytes).order(data.byteOrder);
+    }
+}
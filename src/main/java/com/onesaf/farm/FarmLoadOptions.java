@@ -0,0 +1,90 @@
+package com.onesaf.farm;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+/**
+ * FARM加载选项
+ */
+@Getter
+@Builder
+@ToString
+public class FarmLoadOptions {
+    /**
+     * 默认选项
+     */
+    public static final FarmLoadOptions DEFAULT = FarmLoadOptions.builder().build();
+
+    /**
+     * 加载完成后在日志中报告FARM表描述符去重节省的内存
+     */
+    @Builder.Default
+    private final boolean reportInterning = false;
+
+    /**
+     * FARM表解码方式
+     */
+    @Builder.Default
+    private final DecodeMode decodeMode = DecodeMode.EAGER;
+
+    /**
+     * 并行解码的并行度，默认为可用处理器数
+     */
+    @Builder.Default
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 并行解码使用的执行器；为null时使用按 {@link #parallelism} 创建的 {@link java.util.concurrent.ForkJoinPool}
+     */
+    @Builder.Default
+    private final Executor executor = null;
+
+    /**
+     * 从数据库目录读取时使用预编译的快照缓存：缓存有效时直接加载，否则正常解析后重写缓存
+     */
+    @Builder.Default
+    private final boolean cacheEnabled = false;
+
+    /**
+     * 缓存文件所在目录；为null时缓存文件放在 {@code farm.dat} 旁边
+     */
+    @Builder.Default
+    private final Path cacheDirectory = null;
+
+    /**
+     * 读取成功后以此名称把加载和查找统计注册为平台MBean；为null时不注册，见 {@link FarmMetrics}
+     */
+    @Builder.Default
+    private final String jmxName = null;
+
+    /**
+     * 解析跟踪保留的最近事件数，解析失败时输出到日志；为0时不跟踪，见 {@link com.onesaf.farm.util.ParseTracer}
+     */
+    @Builder.Default
+    private final int parseTraceCapacity = 256;
+
+    /**
+     * FARM表解码方式
+     */
+    public enum DecodeMode {
+        /**
+         * 加载时顺序解码全部单元格
+         */
+        EAGER,
+        /**
+         * 加载时只扫描行边界，特征类别首次被访问时才解码该行
+         * <p>
+         * 枚举有效性检查和旧的二维列表视图只解码被访问的行；列式表、属性倒排索引、覆盖布局和模板以及写入快照缓存
+         * 需要全部行，首次使用时一次解码。
+         */
+        LAZY,
+        /**
+         * 加载时先扫描行边界，再在多个线程上分段解码，结果与顺序解码相同
+         */
+        PARALLEL
+    }
+}
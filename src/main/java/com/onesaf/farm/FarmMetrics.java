@@ -0,0 +1,389 @@
+package com.onesaf.farm;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link FeatureAttributeMapping} 的加载和查找统计
+ * <p>
+ * 查找统计包括映射本身和由它构建的 {@link FarmSnapshot} 上的特征、几何类型和属性查找。
+ * <p>
+ * 查找计数使用 {@link LongAdder}，多个线程同时查找时各自更新不同的单元，不会在计数上竞争；
+ * 读取统计时才把各单元相加。加载统计每次加载只更新一次，由对象锁保护。
+ * <p>
+ * 配置了 {@link FarmLoadOptions#getJmxName()} 时，映射在读取成功后把统计注册为平台MBean，
+ * 对象名为 {@code com.onesaf.farm:type=FeatureAttributeMapping,name=<jmxName>}。
+ * 同名的MBean已存在时由新的统计替换，因此 {@link ReloadableFarm} 每次重新加载后发布的总是最新映射的统计。
+ */
+@Slf4j
+public final class FarmMetrics implements FarmMetricsMXBean {
+    private static final String DOMAIN = "com.onesaf.farm";
+
+    // 本类注册的MBean，用于替换同名MBean以及只注销自己注册的MBean
+    private static final Map<ObjectName, FarmMetrics> REGISTERED = new HashMap<>();
+
+    /**
+     * 加载时分别计时的文件段
+     */
+    enum Section {
+        TABLE,
+        LABELS,
+        FEATURES,
+        ATTRIBUTES
+    }
+
+    private final LookupCounter features = new LookupCounter();
+    private final LookupCounter attributes = new LookupCounter();
+    private final LookupCounter featureGeometries = new LookupCounter();
+
+    private long loadCount;
+    private long cacheLoadCount;
+    private long loadFailureCount;
+    private final long[] sectionNanos = new long[Section.values().length];
+    private final long[] sectionBytes = new long[Section.values().length];
+    private long lastLoadNanos;
+    private long lastLoadBytes;
+    private long totalLoadNanos;
+    private long totalLoadBytes;
+
+    private volatile long snapshotEstimatedBytes;
+
+    private ObjectName objectName;
+
+    void recordSection(Section section, long nanos, long bytes) {
+        synchronized (this) {
+            sectionNanos[section.ordinal()] = nanos;
+            sectionBytes[section.ordinal()] = bytes;
+        }
+    }
+
+    void recordLoad(long nanos, long bytes) {
+        synchronized (this) {
+            loadCount++;
+            lastLoadNanos = nanos;
+            lastLoadBytes = bytes;
+            totalLoadNanos += nanos;
+            totalLoadBytes += bytes;
+        }
+    }
+
+    void recordCacheLoad() {
+        synchronized (this) {
+            cacheLoadCount++;
+        }
+    }
+
+    void recordLoadFailure() {
+        synchronized (this) {
+            loadFailureCount++;
+        }
+    }
+
+    void recordFeatureLookup(boolean hit) {
+        features.record(hit);
+    }
+
+    void recordAttributeLookup(boolean hit) {
+        attributes.record(hit);
+    }
+
+    void recordFeatureGeometryLookup(boolean hit) {
+        featureGeometries.record(hit);
+    }
+
+    void setSnapshotEstimatedBytes(long bytes) {
+        snapshotEstimatedBytes = bytes;
+    }
+
+    /**
+     * 注册为平台MBean，同名的MBean已存在时先注销它；注册失败只记录日志
+     */
+    void register(String name) {
+        ObjectName target;
+        try {
+            target = objectName(name);
+        } catch (MalformedObjectNameException e) {
+            log.warn("JMX名称无效，跳过注册: {}", name, e);
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (REGISTERED) {
+            if (REGISTERED.get(target) == this) {
+                return;
+            }
+            try {
+                if (server.isRegistered(target)) {
+                    server.unregisterMBean(target);
+                }
+                server.registerMBean(this, target);
+                REGISTERED.put(target, this);
+                objectName = target;
+                log.debug("已注册FARM统计MBean: {}", target);
+            } catch (InstanceAlreadyExistsException | InstanceNotFoundException e) {
+                log.warn("注册FARM统计MBean时名称冲突: {}", target, e);
+            } catch (JMException e) {
+                log.warn("注册FARM统计MBean失败: {}", target, e);
+            }
+        }
+    }
+
+    /**
+     * 注销本对象注册的MBean；已被其他统计替换时不做任何事
+     */
+    void unregister() {
+        synchronized (REGISTERED) {
+            if (objectName == null) {
+                return;
+            }
+            ObjectName target = objectName;
+            objectName = null;
+            if (REGISTERED.get(target) != this) {
+                return;
+            }
+            REGISTERED.remove(target);
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(target);
+            } catch (JMException e) {
+                log.warn("注销FARM统计MBean失败: {}", target, e);
+            }
+        }
+    }
+
+    /**
+     * MBean的对象名
+     */
+    public static ObjectName objectName(String name) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN + ":type=FeatureAttributeMapping,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    @Override
+    public synchronized long getCacheLoadCount() {
+        return cacheLoadCount;
+    }
+
+    @Override
+    public synchronized long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    @Override
+    public double getTableParseMillis() {
+        return sectionMillis(Section.TABLE);
+    }
+
+    @Override
+    public long getTableBytesRead() {
+        return sectionBytes(Section.TABLE);
+    }
+
+    @Override
+    public double getLabelParseMillis() {
+        return sectionMillis(Section.LABELS);
+    }
+
+    @Override
+    public long getLabelBytesRead() {
+        return sectionBytes(Section.LABELS);
+    }
+
+    @Override
+    public double getFeatureParseMillis() {
+        return sectionMillis(Section.FEATURES);
+    }
+
+    @Override
+    public long getFeatureBytesRead() {
+        return sectionBytes(Section.FEATURES);
+    }
+
+    @Override
+    public double getAttributeParseMillis() {
+        return sectionMillis(Section.ATTRIBUTES);
+    }
+
+    @Override
+    public long getAttributeBytesRead() {
+        return sectionBytes(Section.ATTRIBUTES);
+    }
+
+    @Override
+    public synchronized double getLastLoadMillis() {
+        return millis(lastLoadNanos);
+    }
+
+    @Override
+    public synchronized long getLastLoadBytes() {
+        return lastLoadBytes;
+    }
+
+    @Override
+    public synchronized long getTotalLoadBytes() {
+        return totalLoadBytes;
+    }
+
+    @Override
+    public synchronized double getLoadThroughputMBPerSecond() {
+        if (totalLoadNanos == 0) {
+            return 0;
+        }
+        return totalLoadBytes / (1024.0 * 1024.0) / (totalLoadNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public long getFeatureLookupCount() {
+        return features.lookups();
+    }
+
+    @Override
+    public long getFeatureHitCount() {
+        return features.hits.sum();
+    }
+
+    @Override
+    public long getFeatureMissCount() {
+        return features.misses.sum();
+    }
+
+    @Override
+    public double getFeatureHitRate() {
+        return features.hitRate();
+    }
+
+    @Override
+    public double getFeatureMissRate() {
+        return features.missRate();
+    }
+
+    @Override
+    public long getAttributeLookupCount() {
+        return attributes.lookups();
+    }
+
+    @Override
+    public long getAttributeHitCount() {
+        return attributes.hits.sum();
+    }
+
+    @Override
+    public long getAttributeMissCount() {
+        return attributes.misses.sum();
+    }
+
+    @Override
+    public double getAttributeHitRate() {
+        return attributes.hitRate();
+    }
+
+    @Override
+    public double getAttributeMissRate() {
+        return attributes.missRate();
+    }
+
+    @Override
+    public long getFeatureGeometryLookupCount() {
+        return featureGeometries.lookups();
+    }
+
+    @Override
+    public long getFeatureGeometryHitCount() {
+        return featureGeometries.hits.sum();
+    }
+
+    @Override
+    public long getFeatureGeometryMissCount() {
+        return featureGeometries.misses.sum();
+    }
+
+    @Override
+    public double getFeatureGeometryHitRate() {
+        return featureGeometries.hitRate();
+    }
+
+    @Override
+    public double getFeatureGeometryMissRate() {
+        return featureGeometries.missRate();
+    }
+
+    @Override
+    public long getSnapshotEstimatedBytes() {
+        return snapshotEstimatedBytes;
+    }
+
+    @Override
+    public void resetLookupCounters() {
+        features.reset();
+        attributes.reset();
+        featureGeometries.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("加载 %d 次(缓存 %d, 失败 %d), 最近一次 %.1f 毫秒/%d 字节, 吞吐量 %.1f MB/s, "
+                        + "查找 特征 %d(命中率 %.3f), 属性 %d(命中率 %.3f), 几何类型 %d(命中率 %.3f), 快照约 %d 字节",
+                getLoadCount(), getCacheLoadCount(), getLoadFailureCount(), getLastLoadMillis(), getLastLoadBytes(),
+                getLoadThroughputMBPerSecond(), getFeatureLookupCount(), getFeatureHitRate(),
+                getAttributeLookupCount(), getAttributeHitRate(), getFeatureGeometryLookupCount(),
+                getFeatureGeometryHitRate(), getSnapshotEstimatedBytes());
+    }
+
+    private synchronized double sectionMillis(Section section) {
+        return millis(sectionNanos[section.ordinal()]);
+    }
+
+    private synchronized long sectionBytes(Section section) {
+        return sectionBytes[section.ordinal()];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 一类查找的命中和未命中计数
+     */
+    private static final class LookupCounter {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+
+        void record(boolean hit) {
+            (hit ? hits : misses).increment();
+        }
+
+        long lookups() {
+            return hits.sum() + misses.sum();
+        }
+
+        double hitRate() {
+            long hit = hits.sum();
+            long total = hit + misses.sum();
+            return total == 0 ? 0 : (double) hit / total;
+        }
+
+        double missRate() {
+            long miss = misses.sum();
+            long total = miss + hits.sum();
+            return total == 0 ? 0 : (double) miss / total;
+        }
+
+        void reset() {
+            hits.reset();
+            misses.reset();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.onesaf.farm;
+
+/**
+ * 通过JMX发布的FARM加载和查找统计，见 {@link FarmMetrics}
+ * <p>
+ * 各段的耗时和字节数是最近一次解析的值；吞吐量按累计的解析字节数和耗时计算。
+ */
+public interface FarmMetricsMXBean {
+    /**
+     * 成功解析次数，不含从缓存加载
+     */
+    long getLoadCount();
+
+    /**
+     * 从快照缓存加载的次数
+     */
+    long getCacheLoadCount();
+
+    /**
+     * 解析失败次数
+     */
+    long getLoadFailureCount();
+
+    double getTableParseMillis();
+
+    long getTableBytesRead();
+
+    double getLabelParseMillis();
+
+    long getLabelBytesRead();
+
+    double getFeatureParseMillis();
+
+    long getFeatureBytesRead();
+
+    double getAttributeParseMillis();
+
+    long getAttributeBytesRead();
+
+    /**
+     * 最近一次解析的总耗时
+     */
+    double getLastLoadMillis();
+
+    /**
+     * 最近一次解析读取的总字节数
+     */
+    long getLastLoadBytes();
+
+    /**
+     * 累计解析字节数
+     */
+    long getTotalLoadBytes();
+
+    /**
+     * 累计解析吞吐量（MB/s），从未解析时为0
+     */
+    double getLoadThroughputMBPerSecond();
+
+    long getFeatureLookupCount();
+
+    long getFeatureHitCount();
+
+    long getFeatureMissCount();
+
+    double getFeatureHitRate();
+
+    double getFeatureMissRate();
+
+    long getAttributeLookupCount();
+
+    long getAttributeHitCount();
+
+    long getAttributeMissCount();
+
+    double getAttributeHitRate();
+
+    double getAttributeMissRate();
+
+    long getFeatureGeometryLookupCount();
+
+    long getFeatureGeometryHitCount();
+
+    long getFeatureGeometryMissCount();
+
+    double getFeatureGeometryHitRate();
+
+    double getFeatureGeometryMissRate();
+
+    /**
+     * 快照的估算内存占用（字节），快照尚未构建时为0
+     */
+    long getSnapshotEstimatedBytes();
+
+    /**
+     * 清零查找计数
+     */
+    void resetLookupCounters();
+}
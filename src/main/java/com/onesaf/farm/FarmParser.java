@@ -1,10 +1,19 @@
 package com.onesaf.farm;
 
+import com.onesaf.farm.io.FarmGenerator;
+import com.onesaf.farm.io.FarmJsonExporter;
+import com.onesaf.farm.io.FarmSource;
 import com.onesaf.farm.model.Feature;
 import com.onesaf.farm.model.FeatureGeometry;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,11 +23,11 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 public class FarmParser {
-    private static final FeatureAttributeMapping farmMapping = new FeatureAttributeMapping();
+    // 命令行每次只访问少量特征类别，FARM表按需解码
+    private static final FarmLoadOptions LOAD_OPTIONS =
+            FarmLoadOptions.builder().decodeMode(FarmLoadOptions.DecodeMode.LAZY).build();
 
     public static void main(String[] args) {
-        args=new String[]{"read","E:\\project\\onesaf-v9.0\\support\\terrain\\build65\\v1\\taiwan_demo","E:\\project\\onesaf-v9.0\\support\\terrain\\build65\\v1\\config"};
-
         if (args.length < 1) {
             printUsage();
             return;
@@ -55,6 +64,14 @@ public class FarmParser {
                     getFeatureInfo(args[1], args.length > 2 ? args[2] : null, args[3], parseGeometryType(args[3]));
                     break;
 
+                case "export":
+                    exportFarm(Arrays.copyOfRange(args, 1, args.length));
+                    break;
+
+                case "generate":
+                    generateFarm(Arrays.copyOfRange(args, 1, args.length));
+                    break;
+
                 default:
                     System.err.println("错误: 未知命令 '" + command + "'");
                     printUsage();
@@ -77,6 +94,13 @@ public class FarmParser {
         System.out.println("  java -jar farm-parser.jar feature-info <database-dir> [config-dir] <feature-label> <geometry-type>");
         System.out.println("    获取特定特征的详细信息");
         System.out.println("    <geometry-type> 可以是: point, linear, areal");
+        System.out.println();
+        System.out.println("  java -jar farm-parser.jar export [-o output.json] <farm.dat|database-dir>");
+        System.out.println("    流式导出为JSON，未指定-o时写到标准输出");
+        System.out.println();
+        System.out.println("  java -jar farm-parser.jar generate [-s seed] [-n categories] [-c attribute-codes] [-a attributes-per-category]");
+        System.out.println("                              [-e max-enumerants] [-be] <farm.dat|database-dir>");
+        System.out.println("    生成指定规模的合成FARM文件，用于压力测试");
     }
 
     private static FeatureGeometry parseGeometryType(String geometryStr) {
@@ -94,24 +118,108 @@ public class FarmParser {
         }
     }
 
+    private static void exportFarm(String[] args) throws IOException {
+        String output = null;
+        String input = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("-o".equals(args[i]) && i + 1 < args.length) {
+                output = args[++i];
+            } else {
+                input = args[i];
+            }
+        }
+        if (input == null) {
+            System.err.println("错误: 缺少FARM文件或数据库目录参数");
+            printUsage();
+            return;
+        }
+
+        // 数据库目录下的FARM文件位于otf子目录
+        Path farmFile = Paths.get(input);
+        if (Files.isDirectory(farmFile)) {
+            farmFile = farmFile.resolve("otf").resolve("farm.dat");
+        }
+        FarmSource source = FarmSource.file(farmFile);
+
+        if (output == null) {
+            FarmJsonExporter.export(source, System.out);
+            System.out.println();
+            return;
+        }
+        try (OutputStream out = Files.newOutputStream(Paths.get(output))) {
+            FarmJsonExporter.export(source, out);
+        }
+        System.out.println("已导出到: " + output);
+    }
+
+    private static void generateFarm(String[] args) throws IOException {
+        FarmGenerator.FarmGeneratorBuilder generator = FarmGenerator.builder();
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("-be".equals(arg)) {
+                generator.byteOrder(ByteOrder.BIG_ENDIAN);
+            } else if (arg.startsWith("-") && i + 1 < args.length) {
+                String value = args[++i];
+                switch (arg) {
+                    case "-s":
+                        generator.seed(Long.parseLong(value));
+                        break;
+                    case "-n":
+                        generator.categories(Integer.parseInt(value));
+                        break;
+                    case "-c":
+                        generator.attributeCodes(Integer.parseInt(value));
+                        break;
+                    case "-a":
+                        generator.attributesPerCategory(Integer.parseInt(value));
+                        break;
+                    case "-e":
+                        generator.maxEnumerants(Integer.parseInt(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知选项: " + arg);
+                }
+            } else {
+                output = arg;
+            }
+        }
+        if (output == null) {
+            System.err.println("错误: 缺少输出文件或数据库目录参数");
+            printUsage();
+            return;
+        }
+
+        // 输出到数据库目录时写入otf/farm.dat，以便用read等命令读取
+        Path farmFile = Paths.get(output);
+        if (Files.isDirectory(farmFile)) {
+            farmFile = farmFile.resolve("otf").resolve("farm.dat");
+            Files.createDirectories(farmFile.getParent());
+        }
+        FarmGenerator farmGenerator = generator.build();
+        farmGenerator.write(farmFile);
+        System.out.println("已生成: " + farmFile + " (" + Files.size(farmFile) + " 字节, " + farmGenerator + ")");
+    }
+
     private static void readFarm(String databaseDir, String configDir) {
         if (configDir == null) {
             configDir = databaseDir + File.separator + "config";
         }
 
+        FeatureAttributeMapping farmMapping = new FeatureAttributeMapping(LOAD_OPTIONS);
         StringBuilder failureReason = new StringBuilder();
         boolean success = farmMapping.read(databaseDir, configDir, failureReason);
 
         if (success) {
             System.out.println("FARM数据读取成功");
-            printFarmStatistics();
+            printFarmStatistics(farmMapping);
         } else {
             System.err.println("FARM数据读取失败: " + failureReason);
             System.out.println("请检查farm-parser.log文件获取更多调试信息");
         }
     }
 
-    private static void printFarmStatistics() {
+    private static void printFarmStatistics(FeatureAttributeMapping farmMapping) {
         System.out.println("FARM统计:");
         System.out.println("  特征数量: " + farmMapping.getFeatureCategoriesToFeatures().stream().filter(f -> f != null).count());
         System.out.println("  属性数量: " + farmMapping.getAttributeCodesToAttributes().stream().filter(a -> a != null).count());
@@ -123,6 +231,7 @@ public class FarmParser {
             configDir = databaseDir + File.separator + "config";
         }
 
+        FeatureAttributeMapping farmMapping = new FeatureAttributeMapping(LOAD_OPTIONS);
         StringBuilder failureReason = new StringBuilder();
         boolean success = farmMapping.read(databaseDir, configDir, failureReason);
 
@@ -153,6 +262,7 @@ public class FarmParser {
             configDir = databaseDir + File.separator + "config";
         }
 
+        FeatureAttributeMapping farmMapping = new FeatureAttributeMapping(LOAD_OPTIONS);
         StringBuilder failureReason = new StringBuilder();
         boolean success = farmMapping.read(databaseDir, configDir, failureReason);
 
@@ -161,20 +271,20 @@ public class FarmParser {
             return;
         }
 
-        Feature[] feature = new Feature[1];
-        if (!farmMapping.getFeature(featureLabel, geometry, feature)) {
+        Feature feature = farmMapping.getFeature(farmMapping.getFeatureCategory(featureLabel, geometry));
+        if (feature == null) {
             System.err.println("找不到特征: " + featureLabel + " (" + geometry + ")");
             return;
         }
 
         System.out.println("特征信息:");
-        System.out.println("  类别: " + feature[0].getCategory());
-        System.out.println("  标签: " + feature[0].getLabel());
-        System.out.println("  代码: " + feature[0].getCode());
-        System.out.println("  几何: " + feature[0].getGeometry());
-        System.out.println("  使用位掩码: " + feature[0].getUsageBitmask() + " (" +
-                com.onesaf.farm.model.UsageBitmask.toString(feature[0].getUsageBitmask()) + ")");
-        System.out.println("  优先级: " + feature[0].getPrecedence());
-        System.out.println("  属性覆盖大小: " + feature[0].getAttributesOverlaySize());
+        System.out.println("  类别: " + feature.getCategory());
+        System.out.println("  标签: " + feature.getLabel());
+        System.out.println("  代码: " + feature.getCode());
+        System.out.println("  几何: " + feature.getGeometry());
+        System.out.println("  使用位掩码: " + feature.getUsageBitmask() + " (" +
+                com.onesaf.farm.model.UsageBitmask.toString(feature.getUsageBitmask()) + ")");
+        System.out.println("  优先级: " + feature.getPrecedence());
+        System.out.println("  属性覆盖大小: " + feature.getAttributesOverlaySize());
     }
 }
\ No newline at end of file
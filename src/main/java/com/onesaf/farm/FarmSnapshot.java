@@ -0,0 +1,327 @@
+package com.onesaf.farm;
+
+import com.onesaf.farm.index.AttributeCategoryIndex;
+import com.onesaf.farm.index.AttributeIndex;
+import com.onesaf.farm.index.FeatureCodeIndex;
+import com.onesaf.farm.index.FeatureLabelIndex;
+import com.onesaf.farm.index.FeatureLabelPrefixIndex;
+import com.onesaf.farm.index.UsageIndex;
+import com.onesaf.farm.model.Attribute;
+import com.onesaf.farm.model.Feature;
+import com.onesaf.farm.model.FeatureGeometry;
+import com.onesaf.farm.overlay.OverlayCodec;
+import com.onesaf.farm.overlay.OverlayLayout;
+import com.onesaf.farm.overlay.OverlayTemplates;
+import com.onesaf.farm.table.FarmTable;
+import com.onesaf.farm.table.LazyFarmRows;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 不可变的FARM数据快照
+ * <p>
+ * 由 {@link FeatureAttributeMapping} 在读取完成后构建一次，之后不再修改。所有字段都是final，
+ * 索引都是冻结的数组，构造完成后即可安全地发布给任意线程，查找不需要加锁。
+ * <p>
+ * 按需解码模式下快照不解码FARM表：枚举有效性检查只解码被检查的行，
+ * 列式表、属性倒排索引和覆盖布局、模板依赖全部行，在首次请求其中任何一个时一起构建并发布，之后同样无锁读取。
+ * <p>
+ * {@link Feature} 和 {@link Attribute} 不可变，快照直接保存并返回加载时的实例，查找不分配对象。
+ * 特征、几何类型和属性查找计入构建快照的映射的 {@link FarmMetrics}，计数使用 {@link java.util.concurrent.atomic.LongAdder}，
+ * 多个线程同时查找不会在计数上竞争。
+ */
+public final class FarmSnapshot {
+    /**
+     * 查找失败时返回的特征类别
+     */
+    public static final int NOT_FOUND = FeatureLabelIndex.NOT_FOUND;
+
+    // 内存估算：对象头加字段，以及数组中的一个引用
+    private static final int OBJECT_BYTES = 48;
+    private static final int REFERENCE_BYTES = 8;
+
+    // 按需解码模式下的FARM表行，已有完整列式表时为null
+    private final LazyFarmRows lazyRows;
+
+    // 构建本快照的映射的统计，特征、几何类型和属性查找计入其中
+    private final FarmMetrics metrics;
+
+    // 由完整列式表派生的结构，按需解码模式下首次访问时构建
+    private volatile TableStructures tableStructures;
+
+    // 按特征类别和属性代码索引，不存在为null
+    private final Feature[] features;
+    private final Attribute[] attributes;
+
+    // 按类别顺序排列的存在的特征
+    private final List<Feature> featureList;
+
+    // 属性代码到属性的索引
+    private final AttributeIndex attributeIndex;
+
+    // 按几何类型分表的标签索引
+    private final FeatureLabelIndex labelIndex;
+
+    // 忽略大小写的标签前缀索引
+    @Getter
+    private final FeatureLabelPrefixIndex labelPrefixIndex;
+
+    // 特征代码到特征类别的索引
+    @Getter
+    private final FeatureCodeIndex featureCodeIndex;
+
+    // 使用位掩码到特征类别的倒排索引
+    @Getter
+    private final UsageIndex usageIndex;
+
+    /**
+     * @param farmTable 完整的列式表，按需解码模式下为null
+     * @param lazyRows  按需解码的FARM表行，farmTable不为null时忽略
+     * @param metrics   查找统计，与构建快照的映射共用
+     */
+    FarmSnapshot(FarmTable farmTable, LazyFarmRows lazyRows, FeatureLabelIndex labelIndex,
+                 FeatureLabelPrefixIndex labelPrefixIndex, FeatureCodeIndex featureCodeIndex, UsageIndex usageIndex,
+                 AttributeIndex attributeIndex, List<Feature> features, List<Attribute> attributes,
+                 FarmMetrics metrics) {
+        this.lazyRows = farmTable == null ? lazyRows : null;
+        this.features = features.toArray(new Feature[0]);
+        this.attributes = attributes.toArray(new Attribute[0]);
+        this.featureList = Collections.unmodifiableList(Arrays.asList(
+                Arrays.stream(this.features).filter(Objects::nonNull).toArray(Feature[]::new)));
+        this.labelIndex = labelIndex;
+        this.labelPrefixIndex = labelPrefixIndex;
+        this.featureCodeIndex = featureCodeIndex;
+        this.usageIndex = usageIndex;
+        this.attributeIndex = attributeIndex;
+        this.metrics = metrics;
+        if (farmTable != null) {
+            this.tableStructures = new TableStructures(farmTable, this.features);
+        }
+    }
+
+    /**
+     * 列式FARM表，本身不可变；按需解码模式下首次调用时解码全部行
+     */
+    public FarmTable getFarmTable() {
+        return tableStructures().farmTable;
+    }
+
+    /**
+     * 属性代码到特征类别的倒排索引；按需解码模式下首次调用时解码全部行
+     */
+    public AttributeCategoryIndex getAttributeCategoryIndex() {
+        return tableStructures().attributeCategoryIndex;
+    }
+
+    /**
+     * 各特征类别的属性覆盖布局；按需解码模式下首次调用时解码全部行
+     */
+    public OverlayCodec getOverlayCodec() {
+        return tableStructures().overlayCodec;
+    }
+
+    /**
+     * 各特征类别的默认覆盖模板，按本机字节序编码；按需解码模式下首次调用时解码全部行
+     */
+    public OverlayTemplates getOverlayTemplates() {
+        return tableStructures().overlayTemplates;
+    }
+
+    private TableStructures tableStructures() {
+        TableStructures result = tableStructures;
+        if (result == null) {
+            synchronized (this) {
+                result = tableStructures;
+                if (result == null) {
+                    try {
+                        result = new TableStructures(lazyRows.toFarmTable(), features);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("解码FARM表时出错", e);
+                    }
+                    tableStructures = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 特征类别上限（不含），有效类别在 {@code [0, getFeatureCategoryLimit())} 内
+     */
+    public int getFeatureCategoryLimit() {
+        return features.length;
+    }
+
+    /**
+     * 实际存在的特征数
+     */
+    public int getFeatureCount() {
+        return featureList.size();
+    }
+
+    /**
+     * 实际存在的属性数
+     */
+    public int getAttributeCount() {
+        int count = 0;
+        for (Attribute attribute : attributes) {
+            if (attribute != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 估算的内存占用（字节）
+     * <p>
+     * 包括列式FARM表、属性倒排索引、属性索引、标签索引、覆盖模板以及特征和属性对象，按数组元素和对象字段粗略计算，
+     * 不含前缀索引和覆盖布局，只适合用于观察数据规模的变化。按需解码模式下尚未构建的表结构不计入。
+     */
+    public long getEstimatedBytes() {
+        long bytes = attributeIndex.getEstimatedBytes()
+                + labelIndex.getEstimatedBytes()
+                + (long) (features.length + attributes.length) * REFERENCE_BYTES;
+        TableStructures structures = tableStructures;
+        if (structures != null) {
+            bytes += structures.farmTable.getSerializedSize()
+                    + structures.attributeCategoryIndex.getEstimatedBytes()
+                    + structures.overlayTemplates.getEstimatedBytes();
+        }
+        // 特征标签存放在标签区中，由标签索引计入
+        for (Feature feature : features) {
+            if (feature != null) {
+                bytes += OBJECT_BYTES;
+            }
+        }
+        for (Attribute attribute : attributes) {
+            if (attribute != null) {
+                bytes += OBJECT_BYTES + stringBytes(attribute.getLabel());
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 按特征标签和几何类型查找特征类别，不分配任何对象
+     *
+     * @return 特征类别，不存在时返回 {@link #NOT_FOUND}
+     */
+    public int getFeatureCategory(CharSequence featureLabel, FeatureGeometry featureGeometry) {
+        return labelIndex.getFeatureCategory(featureLabel, featureGeometry);
+    }
+
+    /**
+     * 按UTF-8编码的特征标签片段和几何类型查找特征类别，不分配任何对象
+     *
+     * @return 特征类别，不存在时返回 {@link #NOT_FOUND}
+     */
+    public int getFeatureCategory(byte[] utf8, int offset, int length, FeatureGeometry featureGeometry) {
+        return labelIndex.getFeatureCategory(utf8, offset, length, featureGeometry);
+    }
+
+    /**
+     * 按特征代码和几何类型查找特征类别，不分配任何对象
+     *
+     * @return 特征类别，不存在时返回 {@link #NOT_FOUND}
+     */
+    public int getFeatureCategoryByCode(int featureCode, FeatureGeometry featureGeometry) {
+        return featureCodeIndex.getCategory(featureCode, featureGeometry);
+    }
+
+    /**
+     * 获取特征几何类型，特征不存在时返回null
+     */
+    public FeatureGeometry getFeatureGeometry(int featureCategory) {
+        Feature feature = feature(featureCategory);
+        metrics.recordFeatureGeometryLookup(feature != null);
+        return feature != null ? feature.getGeometry() : null;
+    }
+
+    /**
+     * 获取特征，不存在时返回null
+     */
+    public Feature getFeature(int featureCategory) {
+        Feature feature = feature(featureCategory);
+        metrics.recordFeatureLookup(feature != null);
+        return feature;
+    }
+
+    /**
+     * 按类别顺序返回全部特征（只读），构建快照时生成一次
+     */
+    public List<Feature> getFeatures() {
+        return featureList;
+    }
+
+    /**
+     * 获取属性，不存在时返回null
+     */
+    public Attribute getAttribute(int attributeCategory) {
+        Attribute attribute = attributeCategory >= 0 && attributeCategory < attributes.length
+                ? attributes[attributeCategory] : null;
+        metrics.recordAttributeLookup(attribute != null);
+        return attribute;
+    }
+
+    /**
+     * 特征类别的属性覆盖布局，类别不存在时返回null
+     */
+    public OverlayLayout getOverlayLayout(int featureCategory) {
+        return getOverlayCodec().layout(featureCategory);
+    }
+
+    /**
+     * 检查枚举代码对特征类别的某个枚举属性是否有效，不分配任何对象；按需解码模式下只解码该特征类别的行
+     */
+    public boolean isValidEnumerant(int featureCategory, int attributeCode, int eeCode) {
+        if (lazyRows != null) {
+            return lazyRows.isValidEnumerant(featureCategory, attributeCode, eeCode);
+        }
+        return tableStructures.farmTable.isValidEnumerant(featureCategory, attributeCode, eeCode);
+    }
+
+    /**
+     * 批量检查枚举代码，属性只查找一次，不分配任何对象；按需解码模式下只解码该特征类别的行
+     *
+     * @return 无效代码的个数
+     */
+    public int isValidEnumerants(int featureCategory, int attributeCode, int[] eeCodes, boolean[] valid) {
+        if (lazyRows != null) {
+            return lazyRows.isValidEnumerants(featureCategory, attributeCode, eeCodes, 0, eeCodes.length, valid);
+        }
+        return tableStructures.farmTable.isValidEnumerants(featureCategory, attributeCode, eeCodes, 0, eeCodes.length, valid);
+    }
+
+    private Feature feature(int featureCategory) {
+        return featureCategory >= 0 && featureCategory < features.length ? features[featureCategory] : null;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : OBJECT_BYTES + value.length() * 2L;
+    }
+
+    /**
+     * 依赖完整列式表的结构，一起构建、一起发布
+     */
+    private static final class TableStructures {
+        private final FarmTable farmTable;
+        private final AttributeCategoryIndex attributeCategoryIndex;
+        private final OverlayCodec overlayCodec;
+        private final OverlayTemplates overlayTemplates;
+
+        TableStructures(FarmTable farmTable, Feature[] features) {
+            this.farmTable = farmTable;
+            this.attributeCategoryIndex = AttributeCategoryIndex.of(farmTable);
+            this.overlayCodec = OverlayCodec.compile(farmTable, Arrays.asList(features));
+            this.overlayTemplates = OverlayTemplates.build(overlayCodec, ByteOrder.nativeOrder());
+        }
+    }
+}
@@ -1,17 +1,37 @@
 package com.onesaf.farm;
 
+import com.onesaf.farm.io.FarmCacheFile;
+import com.onesaf.farm.index.AttributeCategoryIndex;
+import com.onesaf.farm.index.AttributeIndex;
+import com.onesaf.farm.index.FeatureCodeIndex;
+import com.onesaf.farm.index.FeatureLabelIndex;
+import com.onesaf.farm.index.FeatureLabelPrefixIndex;
+import com.onesaf.farm.index.LabelArena;
+import com.onesaf.farm.index.UsageIndex;
+import com.onesaf.farm.io.FarmSource;
+import com.onesaf.farm.io.FarmStreamReader;
+import com.onesaf.farm.io.FarmVisitor;
 import com.onesaf.farm.model.*;
-import com.onesaf.farm.model.datatype.*;
-import com.onesaf.farm.util.BinaryReader;
+import com.onesaf.farm.model.datatype.DataType;
+import com.onesaf.farm.table.FarmTable;
+import com.onesaf.farm.table.FarmTableDecoder;
+import com.onesaf.farm.table.LazyFarmRows;
+import com.onesaf.farm.util.ByteBufferBinaryReader;
 import com.onesaf.farm.util.DirectoryUtil;
+import com.onesaf.farm.util.ParseTracer;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
 
 /**
  * FARM数据解析类，对应C++中的FeatureAttributeMapping类
@@ -20,28 +40,71 @@ import java.util.*;
 public class FeatureAttributeMapping {
     private static final String FARM_FILE_LABEL = "farm.dat";
     private static final Version EXPECTED_VERSION = new Version(8, 0, 0);
+    private static final String CACHE_FILE_SUFFIX = ".cache";
+
+    // 加载选项
+    @Getter
+    private final FarmLoadOptions options;
 
     // 表示是否已初始化
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
+
+    // 特征标签和几何类型到特征类别的映射，首次请求时由标签索引生成
+    private Map<FeatureLabelAndGeometry, Integer> featureLabelsAndGeometriesToCategories;
 
-    // 特征标签和几何类型到特征类别的映射
+    // 按几何类型分表的标签索引，查找时不分配对象；标签存放在其中的UTF-8标签区
     @Getter
-    private final Map<FeatureLabelAndGeometry, Integer> featureLabelsAndGeometriesToCategories = new HashMap<>();
+    private FeatureLabelIndex labelIndex = FeatureLabelIndex.EMPTY;
 
-    // 特征类别到特征的映射
+    // 忽略大小写的标签前缀索引
+    @Getter
+    private FeatureLabelPrefixIndex labelPrefixIndex = FeatureLabelPrefixIndex.EMPTY;
+
+    // 特征代码到特征类别的索引
+    @Getter
+    private FeatureCodeIndex featureCodeIndex = FeatureCodeIndex.EMPTY;
+
+    // 使用位掩码到特征类别的倒排索引
     @Getter
+    private UsageIndex usageIndex = UsageIndex.EMPTY;
+
+    // 特征类别到特征的映射
     private final List<Feature> featureCategoriesToFeatures = new ArrayList<>();
 
     // 属性代码到属性的映射
-    @Getter
     private final List<Attribute> attributeCodesToAttributes = new ArrayList<>();
 
-    // 缓存的属性标签到属性的映射
-    private final Map<String, Attribute> attributeLabelsToAttributes = new HashMap<>();
+    // 按属性代码查找属性的索引
+    @Getter
+    private AttributeIndex attributeIndex = AttributeIndex.EMPTY;
+
+    // FARM表 - 列式存储，特征到属性的映射
+    private FarmTable farmTable = FarmTable.EMPTY;
+
+    // 按需解码模式下的FARM表行
+    private LazyFarmRows lazyRows;
+
+    // 旧的二维列表形式的FARM表，首次访问时由farmTable生成
+    private List<List<DataType>> farm;
 
-    // FARM表 - 二维数组，特征到属性的映射
+    // 读取完成后首次访问时构建的不可变快照
+    private volatile FarmSnapshot snapshot;
+
+    // 加载和查找统计
+    @Getter
+    private final FarmMetrics metrics = new FarmMetrics();
+
+    // 最近一次解析的事件跟踪，未启用跟踪或尚未解析时为null
     @Getter
-    private final List<List<DataType>> farm = new ArrayList<>();
+    private ParseTracer parseTracer;
+
+    public FeatureAttributeMapping() {
+        this(FarmLoadOptions.DEFAULT);
+    }
+
+    public FeatureAttributeMapping(FarmLoadOptions options) {
+        this.options = options;
+    }
 
     /**
      * 从给定目录读取FARM数据
@@ -56,201 +119,196 @@ public class FeatureAttributeMapping {
             return true;
         }
 
-        try {
-            String farmFilePath = databaseDirectory + "/otf/" + FARM_FILE_LABEL;
-            log.info("开始读取FARM文件: {}", farmFilePath);
-
-            if (!DirectoryUtil.isFileReadable(farmFilePath)) {
-                failureReason.append("无法打开文件: ").append(farmFilePath);
-                log.error(failureReason.toString());
-                return false;
-            }
-
-            try (FileInputStream fileStream = new FileInputStream(farmFilePath);
-                 BinaryReader reader = new BinaryReader(fileStream, ByteOrder.LITTLE_ENDIAN)) {
-
-                // 读取并检查字节序
-                int littleEndian = reader.readUInt16();
-                log.debug("文件字节序标记: {} (0=大端, 1=小端)", littleEndian);
-
-                ByteOrder actualByteOrder;
-                if (littleEndian == 1) {
-                    actualByteOrder = ByteOrder.LITTLE_ENDIAN;
-                } else if (littleEndian == 0) {
-                    actualByteOrder = ByteOrder.BIG_ENDIAN;
-                } else {
-                    failureReason.append("FARM文件的字节序标记无效: ").append(littleEndian);
-                    log.error(failureReason.toString());
-                    return false;
-                }
+        String farmFilePath = databaseDirectory + "/otf/" + FARM_FILE_LABEL;
+        if (!DirectoryUtil.isFileReadable(farmFilePath)) {
+            failureReason.append("无法打开文件: ").append(farmFilePath);
+            log.error(failureReason.toString());
+            metrics.recordLoadFailure();
+            return false;
+        }
 
-                // 如果需要，创建一个新的reader使用正确的字节序
-                BinaryReader properReader;
-                if (reader.getByteOrder() != actualByteOrder) {
-                    log.debug("切换到正确的字节序: {}", actualByteOrder);
-                    fileStream.getChannel().position(2); // 重置到字节序之后
-                    properReader = new BinaryReader(fileStream, actualByteOrder);
-                } else {
-                    properReader = reader;
-                }
+        Path farmFile = Paths.get(farmFilePath);
+        if (!options.isCacheEnabled()) {
+            return read(FarmSource.file(farmFile), failureReason);
+        }
 
-                // 读取并检查版本
-                Version fileVersion = readVersion(properReader);
-                log.debug("FARM文件版本: {}", fileVersion);
+        Path cacheFile = cacheFile(farmFile);
+        FarmCacheFile.Key key;
+        try {
+            key = FarmCacheFile.Key.of(farmFile);
+        } catch (IOException e) {
+            log.warn("无法计算FARM文件的缓存标识，跳过缓存: {}", farmFile, e);
+            return read(FarmSource.file(farmFile), failureReason);
+        }
 
-                if (!fileVersion.equals(EXPECTED_VERSION)) {
-                    log.warn("FARM文件版本 {} 与预期版本 {} 不同", fileVersion, EXPECTED_VERSION);
-                }
+        ByteBuffer snapshot = FarmCacheFile.read(cacheFile, key);
+        if (snapshot != null) {
+            try {
+                readSnapshot(snapshot);
+                initialized = true;
+                metrics.recordCacheLoad();
+                registerMetrics();
+                log.info("从缓存加载FARM数据: {}", cacheFile);
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("FARM缓存内容无效，重新解析: {}", cacheFile, e);
+                clear();
+            }
+        }
 
-                // 读取FARM表
-                readFarmTable(properReader);
+        if (!read(FarmSource.file(farmFile), failureReason)) {
+            return false;
+        }
 
-                // 读取特征标签和几何类型到特征类别的映射
-                readFeatureLabelsAndGeometriesToCategories(properReader);
+        // 缓存写入失败不影响本次加载
+        try {
+            FarmCacheFile.write(cacheFile, key, writeSnapshot());
+            log.info("已写入FARM缓存: {}", cacheFile);
+        } catch (IOException | RuntimeException e) {
+            log.warn("写入FARM缓存失败: {}", cacheFile, e);
+        }
+        return true;
+    }
 
-                // 读取特征类别到特征的映射
-                readFeatureCategoriesToFeatures(properReader);
+    /**
+     * 缓存文件路径：未配置缓存目录时放在FARM文件旁边，否则按FARM文件的绝对路径区分
+     */
+    private Path cacheFile(Path farmFile) {
+        if (options.getCacheDirectory() == null) {
+            return farmFile.resolveSibling(FARM_FILE_LABEL + CACHE_FILE_SUFFIX);
+        }
+        String name = String.format("farm-%08x%s", farmFile.toAbsolutePath().normalize().toString().hashCode(), CACHE_FILE_SUFFIX);
+        return options.getCacheDirectory().resolve(name);
+    }
 
-                // 读取属性代码到属性的映射
-              //  readAttributeCodesToAttributes(properReader);
+    /**
+     * 从给定来源读取FARM数据
+     *
+     * @param source        数据来源
+     * @param failureReason 失败原因（输出参数）
+     * @return 是否成功
+     */
+    public boolean read(FarmSource source, StringBuilder failureReason) {
+        if (isInitialized()) {
+            return true;
+        }
 
-                log.info("FARM文件读取成功");
-                initialized = true;
-                return true;
+        log.info("开始读取FARM文件: {}", source);
+
+        long loadStart = System.nanoTime();
+        try (ByteBufferBinaryReader opened = source.open()) {
+            // 按需和并行解码需要随机访问FARM表，流式来源先整体读入内存
+            ByteBufferBinaryReader reader = options.getDecodeMode() == FarmLoadOptions.DecodeMode.EAGER
+                    ? opened : opened.toResident();
+            FarmStreamReader stream = new FarmStreamReader(reader);
+            if (options.getParseTraceCapacity() > 0) {
+                parseTracer = new ParseTracer(options.getParseTraceCapacity());
+                stream.setTracer(parseTracer);
             }
+            Loader loader = new Loader();
+
+            // 读取字节序标记并检查版本
+            stream.readHeader(loader);
+            log.debug("文件字节序: {}", reader.getByteOrder());
+
+            // 读取FARM表
+            long start = System.nanoTime();
+            long position = reader.bytesRead();
+            readFarmTable(stream, loader);
+            metrics.recordSection(FarmMetrics.Section.TABLE, System.nanoTime() - start, reader.bytesRead() - position);
+
+            // 读取特征标签和几何类型到特征类别的映射
+            start = System.nanoTime();
+            position = reader.bytesRead();
+            readFeatureLabelsAndGeometriesToCategories(stream, loader);
+            metrics.recordSection(FarmMetrics.Section.LABELS, System.nanoTime() - start, reader.bytesRead() - position);
+
+            // 读取特征类别到特征的映射
+            start = System.nanoTime();
+            position = reader.bytesRead();
+            readFeatureCategoriesToFeatures(stream, loader);
+            metrics.recordSection(FarmMetrics.Section.FEATURES, System.nanoTime() - start, reader.bytesRead() - position);
+
+            // 读取属性代码到属性的映射
+            start = System.nanoTime();
+            position = reader.bytesRead();
+            readAttributeCodesToAttributes(stream, loader);
+            metrics.recordSection(FarmMetrics.Section.ATTRIBUTES, System.nanoTime() - start, reader.bytesRead() - position);
+
+            metrics.recordLoad(System.nanoTime() - loadStart, reader.bytesRead());
+            log.info("FARM文件读取成功");
+            initialized = true;
+            registerMetrics();
+            return true;
         } catch (IOException e) {
             failureReason.append("读取FARM文件时出错: ").append(e.getMessage());
             log.error("读取FARM文件时出错", e);
+            if (parseTracer != null) {
+                log.error("FARM解析失败前的{}", parseTracer.dump());
+            }
+            metrics.recordLoadFailure();
             return false;
         }
     }
 
     /**
-     * 读取版本信息
+     * 配置了JMX名称时把统计注册为平台MBean
      */
-    private Version readVersion(BinaryReader reader) throws IOException {
-        int versionNumber = reader.readUInt16();
-        int formatNumber = reader.readUInt16();
-        int updateNumber = reader.readUInt16();
-        return new Version(versionNumber, formatNumber, updateNumber);
+    private void registerMetrics() {
+        if (options.getJmxName() != null) {
+            metrics.register(options.getJmxName());
+        }
     }
 
     /**
      * 读取FARM表
      */
-    private void readFarmTable(BinaryReader reader) throws IOException {
+    private void readFarmTable(FarmStreamReader stream, Loader loader) throws IOException {
         try {
             log.debug("开始读取FARM表");
 
-            // 读取FARM表的维度
-            int numRows = reader.readUInt16();
-            int numColumns = reader.readUInt16();
-
-            log.debug("FARM表维度: {}行 x {}列", numRows, numColumns);
-
-            // 读取属性代码
-            List<Integer> codes = new ArrayList<>();
-            for (int column = 0; column < numColumns; column++) {
-                int code = reader.readUInt16();
-                codes.add(code);
-            }
-
-            log.debug("读取到属性代码: {}", codes);
+            // 读取FARM表的维度和属性代码
+            int[] codes = stream.readTableDimensions(loader);
+            int numRows = loader.rows;
 
             // 重置FARM表
-            farm.clear();
+            farmTable = FarmTable.EMPTY;
+            lazyRows = null;
+            farm = null;
 
             // 如果numRows或numColumns为0，直接返回
-            if (numRows == 0 || numColumns == 0) {
+            if (numRows == 0 || codes.length == 0) {
                 log.warn("FARM表为空");
                 return;
             }
 
-            // 找出最大的属性代码，为每行分配足够的空间
-            int maxCode = codes.stream().max(Integer::compareTo).orElse(0);
-            log.debug("最大属性代码: {}", maxCode);
+            ByteBufferBinaryReader reader = stream.getReader();
 
-            // 读取FARM表的条目
-            for (int row = 0; row < numRows; row++) {
-                List<DataType> rowData = new ArrayList<>(Collections.nCopies(maxCode + 1, null));
-                farm.add(rowData);
-
-                for (int column = 0; column < numColumns; column++) {
-                    int code = codes.get(column);
-                    int dataType = reader.readUInt16();
-
-                    log.debug("读取FARM表条目 [行{}][列{}]: 代码={}, 数据类型={}",
-                            row, column, code, dataType);
-
-                    switch (dataType) {
-                        case 0: // no_data_type
-                            // 特征不包含该属性
-                            rowData.set(code, null);
-                            break;
-                        case 1: // int32
-                            InstantiatedDataType<Integer> int32Type = new InstantiatedDataType<>();
-                            int32Type.setOffset(reader.readInt32());
-                            int32Type.setDefaultValue(reader.readInt32());
-                            int32Type.setMinValue(reader.readInt32());
-                            int32Type.setMaxValue(reader.readInt32());
-                            rowData.set(code, int32Type);
-                            break;
-                        case 2: // float64
-                            InstantiatedDataType<Double> float64Type = new InstantiatedDataType<>();
-                            float64Type.setOffset(reader.readInt32());
-                            float64Type.setDefaultValue(reader.readFloat64());
-                            float64Type.setMinValue(reader.readFloat64());
-                            float64Type.setMaxValue(reader.readFloat64());
-                            rowData.set(code, float64Type);
-                            break;
-                        case 3: // string
-                            StringDataType stringType = new StringDataType();
-                            stringType.setOffset(reader.readInt32());
-                            rowData.set(code, stringType);
-                            break;
-                        case 4: // enumeration
-                            EnumerantDataType enumType = new EnumerantDataType();
-                            enumType.setOffset(reader.readInt32());
-
-                            // 读取默认枚举值
-                            Enumerant defaultEnum = new Enumerant();
-                            defaultEnum.setEaCode(reader.readInt32());
-                            defaultEnum.setEeCode(reader.readInt32());
-                            enumType.setDefaultEnum(defaultEnum);
-
-                            // 读取有效的枚举值列表
-                            int numValidEnums = reader.readInt32();
-                            Set<Enumerant> validEnums = new HashSet<>();
-                            validEnums.add(defaultEnum); // 确保默认值在集合中
-
-                            for (int i = 0; i < numValidEnums; i++) {
-                                Enumerant enum1 = new Enumerant();
-                                enum1.setEaCode(reader.readInt32());
-                                enum1.setEeCode(reader.readInt32());
-                                validEnums.add(enum1);
-                            }
-                            enumType.setValidEnums(validEnums);
-
-                            rowData.set(code, enumType);
-                            break;
-                        case 5: // boolean
-                            BooleanDataType boolType = new BooleanDataType();
-                            boolType.setOffset(reader.readInt32());
-                            boolType.setDefaultValue(reader.readInt32() != 0);
-                            rowData.set(code, boolType);
-                            break;
-                        case 6: // uuid
-                            UUIDDataType uuidType = new UUIDDataType();
-                            uuidType.setOffset(reader.readInt32());
-                            rowData.set(code, uuidType);
-                            break;
-                        default:
-                            throw new IOException("在FARM表中发现不支持的数据类型: " + dataType);
-                    }
-                }
+            if (options.getDecodeMode() == FarmLoadOptions.DecodeMode.LAZY) {
+                // 只记录每行的位置，行在首次访问时解码
+                int[] rowPositions = stream.scanTableRows();
+                lazyRows = new LazyFarmRows(copyTableRegion(reader.duplicateBuffer(), rowPositions), codes, rowPositions);
+                log.debug("FARM表行位置扫描完成，共{}行，按需解码", numRows);
+                return;
+            }
+
+            if (options.getDecodeMode() == FarmLoadOptions.DecodeMode.PARALLEL) {
+                int[] rowPositions = stream.scanTableRows();
+                farmTable = decodeParallel(reader.duplicateBuffer(), codes, rowPositions);
+                log.debug("FARM表并行读取完成，共{}行，{}个条目", farmTable.getRowCount(), farmTable.getEntryCount());
+                return;
             }
 
-            log.debug("FARM表读取完成，共{}行", farm.size());
+            // 读取FARM表的条目
+            loader.builder = new FarmTable.Builder(codes, numRows);
+            stream.readTableCells(loader);
+
+            farmTable = loader.builder.build();
+            loader.builder = null;
+            log.debug("FARM表读取完成，共{}行，{}个条目", farmTable.getRowCount(), farmTable.getEntryCount());
+            if (options.isReportInterning()) {
+                log.info("FARM表去重: {}", farmTable.getInternStats());
+            }
 
         } catch (Exception e) {
             log.error("读取FARM表时出错", e);
@@ -259,42 +317,58 @@ public class FeatureAttributeMapping {
     }
 
     /**
-     * 读取特征标签和几何类型到特征类别的映射
+     * 在配置的执行器上并行解码FARM表，未配置执行器时使用临时的ForkJoinPool
      */
-    private void readFeatureLabelsAndGeometriesToCategories(BinaryReader reader) throws IOException {
-        try {
-            log.debug("开始读取特征标签和几何类型到特征类别的映射");
-            featureLabelsAndGeometriesToCategories.clear();
-
-            // 读取映射大小
-            int mapSize = reader.readUInt16();
-            log.debug("特征标签和几何类型映射大小: {}", mapSize);
-
-            for (int i = 0; i < mapSize; i++) {
-                // 读取特征标签
-                String label = reader.readString();
-
-                // 读取几何类型
-                int geometryValue = reader.readUInt16();
-
-                // 验证几何类型值合法性
-                if (geometryValue < 0 || geometryValue > 3) {
-                    log.warn("特征[{}]几何类型值异常: {}, 使用NULL替代", label, geometryValue);
-                    geometryValue = 0; // 使用NULL作为默认值
-                }
+    private FarmTable decodeParallel(ByteBuffer data, int[] codes, int[] rowPositions) throws IOException {
+        int parallelism = Math.max(1, options.getParallelism());
+        if (options.getExecutor() != null) {
+            return FarmTableDecoder.decodeParallel(data, codes, rowPositions, options.getExecutor(), parallelism);
+        }
 
-                FeatureGeometry geometry = FeatureGeometry.fromValue(geometryValue);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return FarmTableDecoder.decodeParallel(data, codes, rowPositions, pool, parallelism);
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-                // 读取特征类别
-                int category = reader.readUInt16();
+    /**
+     * 把FARM表所在的区域复制到堆缓冲区，行位置改为相对于副本开头
+     * <p>
+     * 延迟解码的行在快照的整个生命周期内都会访问这段数据，而源缓冲区可能映射自会被
+     * {@link ReloadableFarm} 监视并原地改写的文件，继续引用映射会读到新内容或触发SIGBUS。
+     */
+    private static ByteBuffer copyTableRegion(ByteBuffer data, int[] rowPositions) {
+        int start = rowPositions[0];
+        int end = rowPositions[rowPositions.length - 1];
+        ByteBuffer region = data.duplicate();
+        region.limit(end).position(start);
+
+        ByteBuffer copy = ByteBuffer.allocate(end - start).order(data.order());
+        copy.put(region).flip();
+        for (int i = 0; i < rowPositions.length; i++) {
+            rowPositions[i] -= start;
+        }
+        return copy;
+    }
 
-                log.debug("读取特征映射: {}({}) -> 类别{}", label, geometry, category);
+    /**
+     * 读取特征标签和几何类型到特征类别的映射
+     */
+    private void readFeatureLabelsAndGeometriesToCategories(FarmStreamReader stream, Loader loader) throws IOException {
+        try {
+            log.debug("开始读取特征标签和几何类型到特征类别的映射");
+            featureLabelsAndGeometriesToCategories = null;
 
-                FeatureLabelAndGeometry key = new FeatureLabelAndGeometry(label, geometry);
-                featureLabelsAndGeometriesToCategories.put(key, category);
-            }
+            loader.labels = new FeatureLabelIndex.Builder();
+            stream.readLabels(loader);
+            labelIndex = loader.labels.build();
+            loader.labels = null;
 
-            log.debug("特征标签和几何类型到特征类别的映射读取完成，共{}个映射", featureLabelsAndGeometriesToCategories.size());
+            labelPrefixIndex = FeatureLabelPrefixIndex.of(labelIndex);
+            log.debug("特征标签和几何类型到特征类别的映射读取完成，共{}个映射，{}个不同标签，{}字节",
+                    labelIndex.size(), labelIndex.getArena().size(), labelIndex.getArena().getByteCount());
         } catch (Exception e) {
             log.error("读取特征标签和几何类型到特征类别的映射时出错", e);
             throw new IOException("读取特征标签和几何类型到特征类别的映射时出错: " + e.getMessage(), e);
@@ -304,32 +378,15 @@ public class FeatureAttributeMapping {
     /**
      * 读取特征类别到特征的映射
      */
-    private void readFeatureCategoriesToFeatures(BinaryReader reader) throws IOException {
+    private void readFeatureCategoriesToFeatures(FarmStreamReader stream, Loader loader) throws IOException {
         featureCategoriesToFeatures.clear();
 
-        // 首先读取map的条目数
-        int mapSize = reader.readUInt16();
-        log.debug("读取特征类别到特征的映射，大小: {}", mapSize);
-
         // 创建一个临时的Map来存储读取的数据
-        Map<Integer, Feature> tempMap = new HashMap<>();
-
-        for (int i = 0; i < mapSize; i++) {
-            try {
-                // 读取category key
-                int category = reader.readUInt16();
-                log.debug("读取特征类别: {}", category);
-
-                // 接下来读取Feature值
-                Feature feature = readFeature(reader);
-                log.debug("读取特征: {} - {}", feature.getLabel(), feature.getGeometry());
-
-                tempMap.put(category, feature);
-            } catch (Exception e) {
-                log.error("读取特征映射的第{}个条目时出错", i, e);
-                throw e;
-            }
-        }
+        loader.features = new HashMap<>();
+        loader.labelSource = labelIndex.getArena()::getString;
+        stream.readFeatures(loader);
+        Map<Integer, Feature> tempMap = loader.features;
+        loader.features = null;
 
         // 确定最大的category值
         int maxCategory = tempMap.keySet().stream().max(Integer::compareTo).orElse(0);
@@ -343,83 +400,266 @@ public class FeatureAttributeMapping {
         for (Map.Entry<Integer, Feature> entry : tempMap.entrySet()) {
             featureCategoriesToFeatures.set(entry.getKey(), entry.getValue());
         }
+
+        featureCodeIndex = FeatureCodeIndex.of(featureCategoriesToFeatures);
+        log.debug("特征代码索引构建完成，共{}个代码", featureCodeIndex.getCodeCount());
+        usageIndex = UsageIndex.of(featureCategoriesToFeatures);
     }
 
     /**
-     * 读取属性代码到属性的映射
+     * 读取属性代码到属性的映射并构建属性索引
+     * <p>
+     * 版本8的文件不包含属性标签，属性的标签为空字符串。
      */
-    private void readAttributeCodesToAttributes(BinaryReader reader) throws IOException {
-        attributeCodesToAttributes.clear();
+    private void readAttributeCodesToAttributes(FarmStreamReader stream, Loader loader) throws IOException {
+        try {
+            attributeCodesToAttributes.clear();
+            loader.attributes = attributeCodesToAttributes;
+            stream.readAttributes(loader);
+            loader.attributes = null;
 
-        int mapSize = reader.readUInt16();
+            attributeIndex = AttributeIndex.of(attributeCodesToAttributes);
+            log.debug("属性代码到属性的映射读取完成，共{}个属性", attributeIndex.size());
+        } catch (Exception e) {
+            log.error("读取属性代码到属性的映射时出错", e);
+            throw new IOException("读取属性代码到属性的映射时出错: " + e.getMessage(), e);
+        }
+    }
 
-        for (int i = 0; i < mapSize; i++) {
-            int code = reader.readInt32();
-            Attribute attribute = readAttribute(reader);
+    /**
+     * 将解析结果写成缓存负载：列式FARM表、特征标签映射、特征和属性，全部为小端字节序
+     * <p>
+     * 特征的标签不单独保存，恢复时与读取文件一样由标签映射反查。
+     */
+    private ByteBuffer writeSnapshot() {
+        FarmTable table = getFarmTable();
+
+        LabelArena arena = labelIndex.getArena();
+        int size = table.getSerializedSize() + 4 * Integer.BYTES
+                + arena.size() * Integer.BYTES + arena.getByteCount() + labelIndex.size() * 3 * Integer.BYTES;
+        for (Feature feature : featureCategoriesToFeatures) {
+            size += 1 + (feature == null ? 0 : 6 * Integer.BYTES);
+        }
+        for (Attribute attribute : attributeCodesToAttributes) {
+            size += 1 + (attribute == null ? 0 : 5 * Integer.BYTES + stringBytes(attribute.getLabel()));
+        }
 
-            // 确保列表大小足够
-            while (attributeCodesToAttributes.size() <= code) {
-                attributeCodesToAttributes.add(null);
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        table.writeTo(out);
+
+        out.putInt(arena.size());
+        for (int id = 0; id < arena.size(); id++) {
+            out.putInt(arena.getLength(id)).put(arena.getBytes(id));
+        }
+        out.putInt(labelIndex.size());
+        for (int entry = 0; entry < labelIndex.size(); entry++) {
+            out.putInt(labelIndex.getEntryLabelId(entry));
+            out.putInt(labelIndex.getEntryGeometry(entry).getValue());
+            out.putInt(labelIndex.getEntryCategory(entry));
+        }
+
+        out.putInt(featureCategoriesToFeatures.size());
+        for (Feature feature : featureCategoriesToFeatures) {
+            out.put((byte) (feature == null ? 0 : 1));
+            if (feature != null) {
+                out.putInt(feature.getCategory());
+                out.putInt(feature.getCode());
+                out.putInt(feature.getGeometry().getValue());
+                out.putInt(feature.getUsageBitmask());
+                out.putInt(feature.getPrecedence());
+                out.putInt(feature.getAttributesOverlaySize());
             }
+        }
 
-            attributeCodesToAttributes.set(code, attribute);
+        out.putInt(attributeCodesToAttributes.size());
+        for (Attribute attribute : attributeCodesToAttributes) {
+            out.put((byte) (attribute == null ? 0 : 1));
+            if (attribute != null) {
+                putString(out, attribute.getLabel());
+                out.putInt(attribute.getCode());
+                out.putInt(attribute.getDataType().getValue());
+                out.putInt(attribute.getUnits().getValue());
+                out.putInt(attribute.isEditability() ? 1 : 0);
+            }
         }
+
+        out.flip();
+        return out;
     }
 
     /**
-     * 读取特征对象
+     * 从缓存负载恢复解析结果，与 {@link #writeSnapshot()} 对应
+     *
+     * @throws RuntimeException 负载不完整或内容无效
      */
-    private Feature readFeature(BinaryReader reader) throws IOException {
-        Feature feature = new Feature();
+    private void readSnapshot(ByteBuffer in) {
+        farmTable = FarmTable.readFrom(in);
+        lazyRows = null;
+        farm = null;
+
+        byte[][] labels = new byte[in.getInt()][];
+        for (int id = 0; id < labels.length; id++) {
+            labels[id] = new byte[in.getInt()];
+            in.get(labels[id]);
+        }
+        FeatureLabelIndex.Builder builder = new FeatureLabelIndex.Builder();
+        int labelCount = in.getInt();
+        for (int i = 0; i < labelCount; i++) {
+            byte[] label = labels[in.getInt()];
+            builder.add(label, 0, label.length, FeatureGeometry.fromValue(in.getInt()), in.getInt());
+        }
+        labelIndex = builder.build();
+        labelPrefixIndex = FeatureLabelPrefixIndex.of(labelIndex);
+
+        IntFunction<String> labelSource = labelIndex.getArena()::getString;
+        int featureCount = in.getInt();
+        for (int i = 0; i < featureCount; i++) {
+            Feature feature = null;
+            if (in.get() != 0) {
+                feature = newFeature(labelSource, in.getInt(), in.getInt(), FeatureGeometry.fromValue(in.getInt()),
+                        in.getInt(), in.getInt(), in.getInt());
+            }
+            featureCategoriesToFeatures.add(feature);
+        }
+        featureCodeIndex = FeatureCodeIndex.of(featureCategoriesToFeatures);
+        usageIndex = UsageIndex.of(featureCategoriesToFeatures);
+
+        int attributeCount = in.getInt();
+        for (int i = 0; i < attributeCount; i++) {
+            Attribute attribute = null;
+            if (in.get() != 0) {
+                attribute = new Attribute(getString(in), in.getInt(), AttributeDataType.fromValue(in.getInt()),
+                        AttributeUnits.fromValue(in.getInt()), in.getInt() != 0);
+            }
+            attributeCodesToAttributes.add(attribute);
+        }
+        attributeIndex = AttributeIndex.of(attributeCodesToAttributes);
 
-        try {
-            // 我们需要严格按照C++代码中Feature类的读取顺序
-            // C++代码中Feature::read方法的顺序是：
-            // category, code, geometry, usage_bitmask, precedence, attributes_overlay_size
-            feature.setCategory(reader.readInt32());
-            feature.setCode(reader.readInt32());
+        if (in.hasRemaining()) {
+            throw new IllegalStateException("FARM缓存末尾有多余的" + in.remaining() + "字节");
+        }
+    }
 
-            // 读取几何类型 - 这是关键部分
-            int geometryValue = reader.readInt32();
-            log.debug("读取到几何类型原始值: {}", geometryValue);
+    /**
+     * 创建特征，标签只记录在标签区中的编号，首次请求时才解码；没有标签时为空字符串
+     *
+     * @param labelSource 标签区的 {@link LabelArena#getString(int)}，同一次加载的特征共用
+     */
+    private Feature newFeature(IntFunction<String> labelSource, int category, int code, FeatureGeometry geometry,
+                               int usageBitmask, int precedence, int attributesOverlaySize) {
+        int labelId = labelIndex.getCategoryLabelId(category);
+        if (labelId < 0) {
+            return new Feature(category, "", code, geometry, usageBitmask, precedence, attributesOverlaySize);
+        }
+        return new Feature(category, labelSource, labelId, code, geometry, usageBitmask, precedence,
+                attributesOverlaySize);
+    }
 
-            // 确保几何类型值在合理范围内
-            if (geometryValue < 0 || geometryValue > 3) {
-                throw new IOException("无效的几何类型值: " + geometryValue +
-                        "。期望范围: 0-3 (null, point, linear, areal)");
-            }
+    private static int stringBytes(String value) {
+        return Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
 
-            feature.setGeometry(FeatureGeometry.fromValue(geometryValue));
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
 
-            feature.setUsageBitmask(reader.readInt32());
-            feature.setPrecedence(reader.readInt32());
-            feature.setAttributesOverlaySize(reader.readInt32());
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
 
-            // 在Feature类中的label成员是单独从FeatureCode通过映射查询得到的
-            // 我们需要从属性表中查找或在后续步骤中设置
-            // 暂时设为空
-            feature.setLabel("");
+    /**
+     * 获取旧的二维列表形式的FARM表：行号为特征类别，列号为属性代码，不存在的属性为null
+     * <p>
+     * 该视图只读，首次调用时由 {@link #getFarmTable()} 生成，新代码应直接使用列式表。
+     */
+    public synchronized List<List<DataType>> getFarm() {
+        if (farm == null) {
+            farm = lazyRows != null ? lazyRows.asList() : farmTable.toDataTypeRows();
+        }
+        return farm;
+    }
 
-            return feature;
-        } catch (Exception e) {
-            log.error("读取特征时出错: 已读取的内容: {}", feature, e);
-            throw e;
+    /**
+     * 获取列式存储的FARM表
+     * <p>
+     * 按需解码模式下首次调用时解码全部行。
+     */
+    public FarmTable getFarmTable() {
+        LazyFarmRows rows = lazyRows;
+        if (rows == null) {
+            return farmTable;
+        }
+        try {
+            return rows.toFarmTable();
+        } catch (IOException e) {
+            throw new UncheckedIOException("解码FARM表时出错", e);
         }
     }
 
     /**
-     * 读取属性对象
+     * 特征标签和几何类型到特征类别的映射（只读视图），按文件中的顺序
+     * <p>
+     * 映射在首次调用时由标签索引生成，查找特征类别应使用 {@link #getFeatureCategory(CharSequence, FeatureGeometry)}。
      */
-    private Attribute readAttribute(BinaryReader reader) throws IOException {
-        Attribute attribute = new Attribute();
+    public synchronized Map<FeatureLabelAndGeometry, Integer> getFeatureLabelsAndGeometriesToCategories() {
+        if (featureLabelsAndGeometriesToCategories == null) {
+            featureLabelsAndGeometriesToCategories = Collections.unmodifiableMap(labelIndex.toMap());
+        }
+        return featureLabelsAndGeometriesToCategories;
+    }
 
-        attribute.setLabel(reader.readString());
-        attribute.setCode(reader.readInt32());
-        attribute.setDataType(AttributeDataType.fromValue(reader.readInt32()));
-        attribute.setUnits(AttributeUnits.fromValue(reader.readInt32()));
-        attribute.setEditability(reader.readInt32() != 0);
+    /**
+     * 特征类别到特征的映射（只读视图），不存在的类别为null
+     */
+    public List<Feature> getFeatureCategoriesToFeatures() {
+        return Collections.unmodifiableList(featureCategoriesToFeatures);
+    }
 
-        return attribute;
+    /**
+     * 属性代码到属性的映射（只读视图），不存在的代码为null
+     */
+    public List<Attribute> getAttributeCodesToAttributes() {
+        return Collections.unmodifiableList(attributeCodesToAttributes);
+    }
+
+    /**
+     * 获取不可变快照，供多个线程无锁共享
+     * <p>
+     * 首次调用时构建。按需解码模式下构建快照不解码FARM表，见 {@link FarmSnapshot}。
+     *
+     * @throws IllegalStateException 尚未成功读取
+     */
+    public FarmSnapshot getSnapshot() {
+        FarmSnapshot result = snapshot;
+        if (result == null) {
+            synchronized (this) {
+                if (!initialized) {
+                    throw new IllegalStateException("FARM数据尚未读取");
+                }
+                result = snapshot;
+                if (result == null) {
+                    LazyFarmRows rows = lazyRows;
+                    result = new FarmSnapshot(rows == null ? farmTable : null, rows, labelIndex, labelPrefixIndex,
+                            featureCodeIndex, usageIndex, attributeIndex, featureCategoriesToFeatures,
+                            attributeCodesToAttributes, metrics);
+                    snapshot = result;
+                    metrics.setSnapshotEstimatedBytes(result.getEstimatedBytes());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 属性代码到特征类别的倒排索引，见 {@link FarmSnapshot#getAttributeCategoryIndex()}
+     *
+     * @throws IllegalStateException 尚未读取FARM数据
+     */
+    public AttributeCategoryIndex getAttributeCategoryIndex() {
+        return getSnapshot().getAttributeCategoryIndex();
     }
 
     /**
@@ -430,80 +670,316 @@ public class FeatureAttributeMapping {
     }
 
     /**
-     * 获取特征几何类型
+     * 按特征标签和几何类型查找特征类别，不分配任何对象
+     *
+     * @return 特征类别，不存在时返回 {@link FeatureLabelIndex#NOT_FOUND}
      */
-    public boolean getFeatureGeometry(int featureCategory, FeatureGeometry[] geometry) {
+    public int getFeatureCategory(CharSequence featureLabel, FeatureGeometry featureGeometry) {
+        return labelIndex.getFeatureCategory(featureLabel, featureGeometry);
+    }
+
+    /**
+     * 按UTF-8编码的特征标签片段和几何类型查找特征类别，不需要先构造字符串
+     *
+     * @return 特征类别，不存在时返回 {@link FeatureLabelIndex#NOT_FOUND}
+     */
+    public int getFeatureCategory(byte[] utf8, int offset, int length, FeatureGeometry featureGeometry) {
+        return labelIndex.getFeatureCategory(utf8, offset, length, featureGeometry);
+    }
+
+    /**
+     * 按特征代码和几何类型查找特征类别，不分配任何对象
+     *
+     * @return 特征类别，不存在时返回 {@link FeatureCodeIndex#NOT_FOUND}
+     */
+    public int getFeatureCategoryByCode(int featureCode, FeatureGeometry featureGeometry) {
+        return featureCodeIndex.getCategory(featureCode, featureGeometry);
+    }
+
+    /**
+     * 获取特征，不存在时返回null
+     */
+    public Feature getFeature(int featureCategory) {
+        Feature feature = feature(featureCategory);
+        metrics.recordFeatureLookup(feature != null);
+        return feature;
+    }
+
+    /**
+     * 获取特征几何类型，特征不存在时返回null
+     */
+    public FeatureGeometry getFeatureGeometry(int featureCategory) {
+        Feature feature = feature(featureCategory);
+        metrics.recordFeatureGeometryLookup(feature != null);
+        return feature != null ? feature.getGeometry() : null;
+    }
+
+    /**
+     * 获取属性，不存在时返回null
+     */
+    public Attribute getAttribute(int attributeCategory) {
+        Attribute attribute = attributeIndex.getAttribute(attributeCategory);
+        metrics.recordAttributeLookup(attribute != null);
+        return attribute;
+    }
+
+    private Feature feature(int featureCategory) {
         if (featureCategory < 0 || featureCategory >= featureCategoriesToFeatures.size()) {
-            return false;
+            return null;
         }
+        return featureCategoriesToFeatures.get(featureCategory);
+    }
 
-        Feature feature = featureCategoriesToFeatures.get(featureCategory);
-        if (feature == null) {
+    /**
+     * 获取特征几何类型
+     *
+     * @deprecated 使用 {@link #getFeatureGeometry(int)}
+     */
+    @Deprecated
+    public boolean getFeatureGeometry(int featureCategory, FeatureGeometry[] geometry) {
+        FeatureGeometry found = getFeatureGeometry(featureCategory);
+        if (found == null) {
             return false;
         }
-
-        geometry[0] = feature.getGeometry();
+        geometry[0] = found;
         return true;
     }
 
     /**
      * 获取属性
+     *
+     * @deprecated 使用 {@link #getAttribute(int)}
      */
+    @Deprecated
     public boolean getAttribute(int attributeCategory, Attribute[] attribute) {
-        if (attributeCategory < 0 || attributeCategory >= attributeCodesToAttributes.size()) {
+        Attribute found = getAttribute(attributeCategory);
+        if (found == null) {
             return false;
         }
-
-        Attribute attr = attributeCodesToAttributes.get(attributeCategory);
-        if (attr == null) {
-            return false;
-        }
-
-        attribute[0] = attr;
+        attribute[0] = found;
         return true;
     }
 
     /**
      * 获取特征
+     *
+     * @deprecated 使用 {@link #getFeatureCategory(CharSequence, FeatureGeometry)} 和 {@link #getFeature(int)}
      */
+    @Deprecated
     public boolean getFeature(String featureLabel, FeatureGeometry featureGeometry, Feature[] feature) {
-        FeatureLabelAndGeometry key = new FeatureLabelAndGeometry(featureLabel, featureGeometry);
-        Integer category = featureLabelsAndGeometriesToCategories.get(key);
-
-        if (category == null) {
+        Feature found = getFeature(getFeatureCategory(featureLabel, featureGeometry));
+        if (found == null) {
             return false;
         }
+        feature[0] = found;
+        return true;
+    }
 
-        if (category < 0 || category >= featureCategoriesToFeatures.size()) {
-            return false;
+    /**
+     * 检查枚举代码对特征类别的某个枚举属性是否有效，不分配任何对象；按需解码模式下只解码该特征类别的行
+     *
+     * @param featureCategory 特征类别
+     * @param attributeCode   属性代码
+     * @param eeCode          枚举代码
+     * @return 特征包含该枚举属性且代码在有效值域内时返回true
+     */
+    public boolean isValidEnumerant(int featureCategory, int attributeCode, int eeCode) {
+        LazyFarmRows rows = lazyRows;
+        if (rows != null) {
+            return rows.isValidEnumerant(featureCategory, attributeCode, eeCode);
         }
+        return farmTable.isValidEnumerant(featureCategory, attributeCode, eeCode);
+    }
 
-        Feature feat = featureCategoriesToFeatures.get(category);
-        if (feat == null) {
-            return false;
+    /**
+     * 批量检查枚举代码，属性只查找一次，不分配任何对象；按需解码模式下只解码该特征类别的行
+     *
+     * @param featureCategory 特征类别
+     * @param attributeCode   属性代码
+     * @param eeCodes         待检查的枚举代码
+     * @param valid           输出参数，与eeCodes等长，对应位置写入是否有效
+     * @return 无效代码的个数
+     */
+    public int isValidEnumerants(int featureCategory, int attributeCode, int[] eeCodes, boolean[] valid) {
+        LazyFarmRows rows = lazyRows;
+        if (rows != null) {
+            return rows.isValidEnumerants(featureCategory, attributeCode, eeCodes, 0, eeCodes.length, valid);
         }
-
-        feature[0] = feat;
-        return true;
+        return farmTable.isValidEnumerants(featureCategory, attributeCode, eeCodes, 0, eeCodes.length, valid);
     }
 
     /**
      * 释放资源
      */
-    public void destroy() {
+    public synchronized void destroy() {
         if (initialized) {
-            // 清除所有数据
-            featureLabelsAndGeometriesToCategories.clear();
-            featureCategoriesToFeatures.clear();
-            attributeCodesToAttributes.clear();
-            attributeLabelsToAttributes.clear();
+            clear();
+            initialized = false;
+        }
+        metrics.unregister();
+    }
+
+    /**
+     * 清除所有数据
+     */
+    private void clear() {
+        featureLabelsAndGeometriesToCategories = null;
+        featureCategoriesToFeatures.clear();
+        attributeCodesToAttributes.clear();
+        attributeIndex = AttributeIndex.EMPTY;
+        labelIndex = FeatureLabelIndex.EMPTY;
+        labelPrefixIndex = FeatureLabelPrefixIndex.EMPTY;
+        featureCodeIndex = FeatureCodeIndex.EMPTY;
+        usageIndex = UsageIndex.EMPTY;
+
+        farmTable = FarmTable.EMPTY;
+        lazyRows = null;
+        farm = null;
+        snapshot = null;
+    }
+
+    /**
+     * 把流式解析的回调转为对象模型
+     */
+    private final class Loader implements FarmVisitor {
+        // FARM表行数
+        private int rows;
+
+        // 顺序解码时的FARM表构建器
+        private FarmTable.Builder builder;
+
+        // 特征标签索引的构建器
+        private FeatureLabelIndex.Builder labels;
+
+        // 按映射键收集的特征
+        private Map<Integer, Feature> features;
 
-            for (List<DataType> row : farm) {
-                row.clear();
+        // 特征标签的来源，读取特征前设置
+        private IntFunction<String> labelSource;
+
+        // 按映射键存放的属性，不存在的键为null
+        private List<Attribute> attributes;
+
+        @Override
+        public void visitVersion(int versionNumber, int formatNumber, int updateNumber) {
+            Version fileVersion = new Version(versionNumber, formatNumber, updateNumber);
+            log.debug("FARM文件版本: {}", fileVersion);
+
+            if (!fileVersion.equals(EXPECTED_VERSION)) {
+                log.warn("FARM文件版本 {} 与预期版本 {} 不同", fileVersion, EXPECTED_VERSION);
             }
-            farm.clear();
+        }
 
-            initialized = false;
+        @Override
+        public void visitTableDimensions(int rows, int[] codes) {
+            this.rows = rows;
+            log.debug("FARM表维度: {}行 x {}列", rows, codes.length);
+            log.debug("读取到属性代码: {}", codes);
+        }
+
+        @Override
+        public void visitInt32(int row, int code, int offset, int defaultValue, int minValue, int maxValue) {
+            builder.addInt32(code, offset, defaultValue, minValue, maxValue);
+        }
+
+        @Override
+        public void visitFloat64(int row, int code, int offset, double defaultValue, double minValue, double maxValue) {
+            builder.addFloat64(code, offset, defaultValue, minValue, maxValue);
+        }
+
+        @Override
+        public void visitString(int row, int code, int offset) {
+            builder.addString(code, offset);
+        }
+
+        @Override
+        public void visitEnumeration(int row, int code, int offset, int eaCode, int defaultCode,
+                                     int[] validCodes, int validCount) {
+            builder.addEnumeration(code, offset, eaCode, defaultCode, validCodes, validCount);
+        }
+
+        @Override
+        public void visitBoolean(int row, int code, int offset, boolean defaultValue) {
+            builder.addBoolean(code, offset, defaultValue);
+        }
+
+        @Override
+        public void visitUUID(int row, int code, int offset) {
+            builder.addUUID(code, offset);
+        }
+
+        @Override
+        public void visitRowEnd(int row) {
+            builder.endRow();
+        }
+
+        @Override
+        public void visitLabelCount(int count) {
+            log.debug("特征标签和几何类型映射大小: {}", count);
+        }
+
+        @Override
+        public void visitLabel(byte[] utf8, int length, int geometryValue, int category) throws IOException {
+            // 标签区只接受有效UTF-8，畸形序列替换为U+FFFD后，字节上的散列和比较与解码后的字符串一致
+            if (!LabelArena.isValidUtf8(utf8, 0, length)) {
+                utf8 = LabelArena.replaceMalformedUtf8(utf8, 0, length);
+                length = utf8.length;
+                log.warn("特征类别{}的标签不是有效的UTF-8编码，畸形字节已替换为U+FFFD: {}",
+                        category, new String(utf8, StandardCharsets.UTF_8));
+            }
+
+            // 验证几何类型值合法性
+            if (geometryValue > 3) {
+                log.warn("特征[{}]几何类型值异常: {}, 使用NULL替代",
+                        new String(utf8, 0, length, StandardCharsets.UTF_8), geometryValue);
+                geometryValue = 0; // 使用NULL作为默认值
+            }
+
+            // 标签字节直接复制到标签区，不构造字符串
+            labels.add(utf8, 0, length, FeatureGeometry.fromValue(geometryValue), category);
+        }
+
+        @Override
+        public void visitFeatureCount(int count) {
+            log.debug("读取特征类别到特征的映射，大小: {}", count);
+        }
+
+        @Override
+        public void visitFeature(int key, int category, int code, int geometryValue,
+                                 int usageBitmask, int precedence, int attributesOverlaySize) throws IOException {
+            // 确保几何类型值在合理范围内
+            if (geometryValue < 0 || geometryValue > 3) {
+                throw new IOException("特征类别" + key + "的几何类型值无效: " + geometryValue +
+                        "。期望范围: 0-3 (null, point, linear, areal)");
+            }
+
+            // 标签由特征类别反查标签映射得到，只记录标签编号，同一标签的各几何类型共用一个字符串
+            Feature feature = newFeature(labelSource, category, code, FeatureGeometry.fromValue(geometryValue),
+                    usageBitmask, precedence, attributesOverlaySize);
+            features.put(key, feature);
+        }
+
+        @Override
+        public void visitAttribute(int key, int code, int dataType, int units, int editability) throws IOException {
+            AttributeDataType attributeDataType;
+            AttributeUnits attributeUnits;
+            try {
+                attributeDataType = AttributeDataType.fromValue(dataType);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("属性" + key + "的数据类型值无效: " + dataType, e);
+            }
+            try {
+                attributeUnits = AttributeUnits.fromValue(units);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("属性" + key + "的单位值无效: " + units, e);
+            }
+
+            // 文件中没有属性标签
+            Attribute attribute = new Attribute("", code, attributeDataType, attributeUnits, editability != 0);
+            while (attributes.size() <= key) {
+                attributes.add(null);
+            }
+            attributes.set(key, attribute);
         }
     }
-}
\ No newline at end of file
+}
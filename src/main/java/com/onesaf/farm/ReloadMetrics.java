@@ -0,0 +1,39 @@
+package com.onesaf.farm;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * FARM重新加载统计的快照
+ */
+@Getter
+@ToString
+public final class ReloadMetrics {
+    private final long successCount;          // 成功加载次数，包括首次加载
+    private final long failureCount;          // 失败次数，失败时继续使用旧数据
+    private final long lastLatencyMillis;     // 最近一次成功加载的耗时
+    private final long maxLatencyMillis;      // 成功加载的最大耗时
+    private final long totalLatencyMillis;    // 成功加载的总耗时
+    private final long lastSuccessTime;       // 最近一次成功的时间（毫秒时间戳），从未成功为0
+    private final long lastFailureTime;       // 最近一次失败的时间（毫秒时间戳），从未失败为0
+    private final String lastFailureReason;   // 最近一次失败的原因，从未失败为null
+
+    public ReloadMetrics(long successCount, long failureCount, long lastLatencyMillis, long maxLatencyMillis,
+                         long totalLatencyMillis, long lastSuccessTime, long lastFailureTime, String lastFailureReason) {
+        this.successCount = successCount;
+        this.failureCount = failureCount;
+        this.lastLatencyMillis = lastLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.totalLatencyMillis = totalLatencyMillis;
+        this.lastSuccessTime = lastSuccessTime;
+        this.lastFailureTime = lastFailureTime;
+        this.lastFailureReason = lastFailureReason;
+    }
+
+    /**
+     * 成功加载的平均耗时
+     */
+    public double getAverageLatencyMillis() {
+        return successCount == 0 ? 0 : (double) totalLatencyMillis / successCount;
+    }
+}
@@ -0,0 +1,227 @@
+package com.onesaf.farm;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 可热更新的FARM数据
+ * <p>
+ * 监视 {@code <db>/otf/farm.dat}，文件变化后在后台线程中解析并构建新的 {@link FarmSnapshot}，
+ * 成功后用一次原子引用替换发布。已经通过 {@link #current()} 取得旧快照的线程继续使用旧数据，
+ * 不会看到清空或写了一半的映射；解析失败时保留旧数据并记录失败。
+ * <p>
+ * 编辑器发布文件时往往连续产生多个事件，监视线程在最后一个事件之后等待 {@link #getSettleMillis()} 毫秒
+ * 没有新事件再加载，避免读到未写完的文件。
+ */
+@Slf4j
+public class ReloadableFarm implements Closeable {
+    private static final String FARM_FILE_LABEL = "farm.dat";
+
+    /**
+     * 默认的事件静默等待时间
+     */
+    public static final long DEFAULT_SETTLE_MILLIS = 500;
+
+    @Getter
+    private final String databaseDirectory;
+    @Getter
+    private final String configDirectory;
+    @Getter
+    private final FarmLoadOptions options;
+    @Getter
+    private final long settleMillis;
+
+    private final AtomicReference<FarmSnapshot> current = new AtomicReference<>();
+
+    // 同一时间只进行一次加载；统计字段由统计锁保护，解析期间也可以读取
+    private final Object reloadLock = new Object();
+    private final Object metricsLock = new Object();
+    private long successCount;
+    private long failureCount;
+    private long lastLatencyMillis;
+    private long maxLatencyMillis;
+    private long totalLatencyMillis;
+    private long lastSuccessTime;
+    private long lastFailureTime;
+    private String lastFailureReason;
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean closed = false;
+
+    public ReloadableFarm(String databaseDirectory, String configDirectory) {
+        this(databaseDirectory, configDirectory, FarmLoadOptions.DEFAULT, DEFAULT_SETTLE_MILLIS);
+    }
+
+    public ReloadableFarm(String databaseDirectory, String configDirectory, FarmLoadOptions options, long settleMillis) {
+        this.databaseDirectory = databaseDirectory;
+        this.configDirectory = configDirectory;
+        this.options = options;
+        this.settleMillis = settleMillis;
+    }
+
+    /**
+     * 当前发布的FARM快照，首次加载成功之前为null
+     * <p>
+     * 快照不可变，调用方可以在一次操作中一直使用同一个快照。
+     */
+    public FarmSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * 立即解析FARM文件，成功后替换当前数据
+     *
+     * @param failureReason 失败原因（输出参数）
+     * @return 是否成功；失败时当前数据不变
+     */
+    public boolean reload(StringBuilder failureReason) {
+        synchronized (reloadLock) {
+            long start = System.nanoTime();
+            FeatureAttributeMapping mapping = new FeatureAttributeMapping(options);
+            StringBuilder reason = new StringBuilder();
+
+            FarmSnapshot loaded = null;
+            try {
+                if (mapping.read(databaseDirectory, configDirectory, reason)) {
+                    loaded = mapping.getSnapshot();
+                }
+            } catch (RuntimeException e) {
+                reason.append("读取FARM文件时出错: ").append(e.getMessage());
+                log.error("重新加载FARM时出错", e);
+            }
+
+            long now = System.currentTimeMillis();
+            if (loaded == null) {
+                synchronized (metricsLock) {
+                    failureCount++;
+                    lastFailureTime = now;
+                    lastFailureReason = reason.toString();
+                }
+                failureReason.append(reason);
+                log.warn("重新加载FARM失败，继续使用旧数据: {}", reason);
+                return false;
+            }
+
+            FarmSnapshot previous = current.getAndSet(loaded);
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            synchronized (metricsLock) {
+                successCount++;
+                lastSuccessTime = now;
+                lastLatencyMillis = latency;
+                maxLatencyMillis = Math.max(maxLatencyMillis, latency);
+                totalLatencyMillis += latency;
+            }
+            log.info("FARM{}完成，耗时{}毫秒", previous == null ? "加载" : "重新加载", latency);
+            return true;
+        }
+    }
+
+    /**
+     * 重新加载统计
+     */
+    public ReloadMetrics getMetrics() {
+        synchronized (metricsLock) {
+            return new ReloadMetrics(successCount, failureCount, lastLatencyMillis, maxLatencyMillis,
+                    totalLatencyMillis, lastSuccessTime, lastFailureTime, lastFailureReason);
+        }
+    }
+
+    /**
+     * 开始监视FARM文件，尚未加载时先同步加载一次
+     *
+     * @param failureReason 首次加载的失败原因（输出参数）
+     * @return 首次加载是否成功；失败时仍然开始监视，文件修复后自动加载
+     * @throws IOException 无法监视目录
+     */
+    public synchronized boolean start(StringBuilder failureReason) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("已关闭");
+        }
+        boolean loaded = current() != null || reload(failureReason);
+        if (watchThread != null) {
+            return loaded;
+        }
+
+        Path otfDirectory = Paths.get(databaseDirectory, "otf");
+        watchService = otfDirectory.getFileSystem().newWatchService();
+        try {
+            otfDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            watchService.close();
+            watchService = null;
+            throw e;
+        }
+
+        watchThread = new Thread(this::watch, "farm-reload");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        log.info("开始监视FARM文件: {}", otfDirectory.resolve(FARM_FILE_LABEL));
+        return loaded;
+    }
+
+    private void watch() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.take();
+                boolean changed = isFarmChanged(key);
+                if (!key.reset()) {
+                    log.warn("FARM目录已不可访问，停止监视");
+                    return;
+                }
+                if (!changed) {
+                    continue;
+                }
+
+                // 等待连续的写入事件结束
+                WatchKey next;
+                while ((next = watchService.poll(settleMillis, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                reload(new StringBuilder());
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 关闭
+        } catch (RuntimeException e) {
+            log.error("FARM监视线程异常退出", e);
+        }
+    }
+
+    private static boolean isFarmChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || FARM_FILE_LABEL.equals(String.valueOf(event.context()))) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 停止监视，当前数据保持可用
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+            try {
+                watchThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            watchThread = null;
+        }
+    }
+}
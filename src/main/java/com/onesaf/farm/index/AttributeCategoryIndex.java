@@ -0,0 +1,146 @@
+package com.onesaf.farm.index;
+
+import com.onesaf.farm.table.FarmTable;
+
+import java.util.Arrays;
+
+/**
+ * 属性代码到特征类别的倒排索引
+ * <p>
+ * FARM表按特征类别存储各自包含的属性，本索引反过来按属性代码保存包含该属性的特征类别（CSR格式），
+ * 每个代码的类别升序连续存放，并在平行数组中附带该条目的数据类型标记和偏移量。
+ * "哪些类别带有某属性"只需一次数组下标访问，不再扫描FARM表的每一行。
+ * 构建完成后不可变，可在多个线程间共享。
+ */
+public final class AttributeCategoryIndex {
+    public static final AttributeCategoryIndex EMPTY = of(FarmTable.EMPTY);
+
+    // 属性代码c的条目位于 [start[c], start[c + 1])
+    private final int[] start;
+    private final int[] categories;
+    private final byte[] typeTags;
+    private final int[] offsets;
+
+    private AttributeCategoryIndex(int[] start, int[] categories, byte[] typeTags, int[] offsets) {
+        this.start = start;
+        this.categories = categories;
+        this.typeTags = typeTags;
+        this.offsets = offsets;
+    }
+
+    /**
+     * 由FARM表构建索引
+     */
+    public static AttributeCategoryIndex of(FarmTable table) {
+        int codeLimit = table.getEntryCount() > 0 ? table.getMaxCode() + 1 : 0;
+        int[] start = new int[codeLimit + 1];
+        int entries = table.getEntryCount();
+        for (int entry = 0; entry < entries; entry++) {
+            start[table.code(entry) + 1]++;
+        }
+        for (int code = 0; code < codeLimit; code++) {
+            start[code + 1] += start[code];
+        }
+
+        // 按行顺序填充，每个代码的类别自然升序
+        int[] next = Arrays.copyOf(start, codeLimit);
+        int[] categories = new int[entries];
+        byte[] typeTags = new byte[entries];
+        int[] offsets = new int[entries];
+        for (int row = 0; row < table.getRowCount(); row++) {
+            for (int entry = table.rowStart(row), end = table.rowEnd(row); entry < end; entry++) {
+                int position = next[table.code(entry)]++;
+                categories[position] = row;
+                typeTags[position] = (byte) table.typeTag(entry);
+                offsets[position] = table.offset(entry);
+            }
+        }
+        return new AttributeCategoryIndex(start, categories, typeTags, offsets);
+    }
+
+    /**
+     * 属性代码上限（不含）
+     */
+    public int getCodeLimit() {
+        return start.length - 1;
+    }
+
+    /**
+     * 索引数组的估算字节数
+     */
+    public long getEstimatedBytes() {
+        return (long) (start.length + categories.length + offsets.length) * Integer.BYTES + typeTags.length;
+    }
+
+    /**
+     * 包含该属性的特征类别数
+     */
+    public int getCategoryCount(int attributeCode) {
+        return valid(attributeCode) ? start[attributeCode + 1] - start[attributeCode] : 0;
+    }
+
+    /**
+     * 属性代码第一个条目的位置，与 {@link #end(int)} 一起用于按位置遍历
+     */
+    public int start(int attributeCode) {
+        return valid(attributeCode) ? start[attributeCode] : 0;
+    }
+
+    /**
+     * 属性代码最后一个条目之后的位置
+     */
+    public int end(int attributeCode) {
+        return valid(attributeCode) ? start[attributeCode + 1] : 0;
+    }
+
+    public int category(int position) {
+        return categories[position];
+    }
+
+    /**
+     * 条目的数据类型标记，取值同 {@link com.onesaf.farm.model.AttributeDataType#getValue()}
+     */
+    public int typeTag(int position) {
+        return typeTags[position];
+    }
+
+    public int offset(int position) {
+        return offsets[position];
+    }
+
+    /**
+     * 特征类别是否包含该属性
+     */
+    public boolean contains(int attributeCode, int category) {
+        return valid(attributeCode)
+                && Arrays.binarySearch(categories, start[attributeCode], start[attributeCode + 1], category) >= 0;
+    }
+
+    /**
+     * 包含该属性的特征类别，升序排列
+     */
+    public int[] getCategories(int attributeCode) {
+        return Arrays.copyOfRange(categories, start(attributeCode), end(attributeCode));
+    }
+
+    /**
+     * 按特征类别升序访问包含该属性的条目
+     */
+    public void forEach(int attributeCode, EntryVisitor visitor) {
+        for (int position = start(attributeCode), end = end(attributeCode); position < end; position++) {
+            visitor.visit(categories[position], typeTags[position], offsets[position]);
+        }
+    }
+
+    private boolean valid(int attributeCode) {
+        return attributeCode >= 0 && attributeCode < start.length - 1;
+    }
+
+    /**
+     * 倒排条目访问回调
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(int category, int typeTag, int offset);
+    }
+}
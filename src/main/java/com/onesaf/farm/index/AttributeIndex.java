@@ -0,0 +1,118 @@
+package com.onesaf.farm.index;
+
+import com.onesaf.farm.model.Attribute;
+import com.onesaf.farm.model.AttributeDataType;
+import com.onesaf.farm.model.AttributeUnits;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按属性代码查找属性的索引
+ * <p>
+ * 属性按代码直接存放在数组中，数据类型、单位和可编辑性另存为基本类型数组，按代码查找只需一次范围检查和一次数组访问。
+ * 版本8的文件不包含属性标签，因此不提供按标签查找。
+ * <p>
+ * 构建完成后不可变，可在多个线程间共享。
+ */
+public final class AttributeIndex {
+    public static final AttributeIndex EMPTY = of(List.of());
+
+    private static final AttributeDataType[] DATA_TYPES = AttributeDataType.values();
+    private static final AttributeUnits[] UNITS = AttributeUnits.values();
+
+    // 按属性代码索引，不存在的代码为null，数据类型和单位为-1
+    private final Attribute[] attributes;
+    private final byte[] dataTypes;
+    private final byte[] units;
+    private final boolean[] editable;
+    private final int count;
+
+    private AttributeIndex(List<Attribute> attributesByCode) {
+        int limit = attributesByCode.size();
+        this.attributes = new Attribute[limit];
+        this.dataTypes = new byte[limit];
+        this.units = new byte[limit];
+        this.editable = new boolean[limit];
+        Arrays.fill(dataTypes, (byte) -1);
+        Arrays.fill(units, (byte) -1);
+
+        int present = 0;
+        for (int code = 0; code < limit; code++) {
+            Attribute attribute = attributesByCode.get(code);
+            if (attribute == null) {
+                continue;
+            }
+            attributes[code] = attribute;
+            dataTypes[code] = (byte) (attribute.getDataType() != null ? attribute.getDataType().ordinal() : -1);
+            units[code] = (byte) (attribute.getUnits() != null ? attribute.getUnits().ordinal() : -1);
+            editable[code] = attribute.isEditability();
+            present++;
+        }
+        this.count = present;
+    }
+
+    /**
+     * 由属性代码到属性的映射构建索引
+     *
+     * @param attributesByCode 下标为属性代码，不存在的代码为null
+     */
+    public static AttributeIndex of(List<Attribute> attributesByCode) {
+        return new AttributeIndex(attributesByCode);
+    }
+
+    /**
+     * 属性代码上限（不含）
+     */
+    public int getCodeLimit() {
+        return attributes.length;
+    }
+
+    /**
+     * 实际存在的属性数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 获取属性，不存在时返回null
+     */
+    public Attribute getAttribute(int code) {
+        return Integer.compareUnsigned(code, attributes.length) < 0 ? attributes[code] : null;
+    }
+
+    public boolean contains(int code) {
+        return getAttribute(code) != null;
+    }
+
+    /**
+     * 属性的数据类型，不存在时返回null
+     */
+    public AttributeDataType getDataType(int code) {
+        int ordinal = Integer.compareUnsigned(code, dataTypes.length) < 0 ? dataTypes[code] : -1;
+        return ordinal >= 0 ? DATA_TYPES[ordinal] : null;
+    }
+
+    /**
+     * 属性的单位，不存在时返回null
+     */
+    public AttributeUnits getUnits(int code) {
+        int ordinal = Integer.compareUnsigned(code, units.length) < 0 ? units[code] : -1;
+        return ordinal >= 0 ? UNITS[ordinal] : null;
+    }
+
+    /**
+     * 属性是否可编辑，不存在时返回false
+     */
+    public boolean isEditable(int code) {
+        return Integer.compareUnsigned(code, editable.length) < 0 && editable[code];
+    }
+
+    /**
+     * 索引数组的估算字节数
+     */
+    public long getEstimatedBytes() {
+        return (long) attributes.length * (8 + 3);
+    }
+}
@@ -0,0 +1,142 @@
+package com.onesaf.farm.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 特征类别集合，以 {@code long[]} 位图存储
+ * <p>
+ * 第 {@code c} 个特征类别对应第 {@code c >>> 6} 个字的第 {@code c & 63} 位。
+ * 交、并、差都是逐字的位运算，结果为新的集合；实例不可变，可在多个线程间共享。
+ */
+public final class CategorySet {
+    private final long[] words;
+
+    CategorySet(long[] words) {
+        this.words = words;
+    }
+
+    static CategorySet empty(int words) {
+        return new CategorySet(new long[words]);
+    }
+
+    /**
+     * 是否包含特征类别
+     */
+    public boolean contains(int category) {
+        int word = category >>> 6;
+        return category >= 0 && word < words.length && (words[word] & (1L << category)) != 0;
+    }
+
+    /**
+     * 交集
+     */
+    public CategorySet and(CategorySet other) {
+        long[] result = new long[Math.min(words.length, other.words.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = words[i] & other.words[i];
+        }
+        return new CategorySet(result);
+    }
+
+    /**
+     * 并集
+     */
+    public CategorySet or(CategorySet other) {
+        long[] result = Arrays.copyOf(words, Math.max(words.length, other.words.length));
+        for (int i = 0; i < other.words.length; i++) {
+            result[i] |= other.words[i];
+        }
+        return new CategorySet(result);
+    }
+
+    /**
+     * 差集，即属于本集合但不属于 {@code other} 的类别
+     */
+    public CategorySet andNot(CategorySet other) {
+        long[] result = words.clone();
+        int common = Math.min(words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            result[i] &= ~other.words[i];
+        }
+        return new CategorySet(result);
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 类别数
+     */
+    public int size() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * 按升序遍历类别
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < words.length; i++) {
+            for (long word = words[i]; word != 0; word &= word - 1) {
+                action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+            }
+        }
+    }
+
+    /**
+     * 升序排列的类别
+     */
+    public int[] toArray() {
+        int[] result = new int[size()];
+        int size = 0;
+        for (int i = 0; i < words.length; i++) {
+            for (long word = words[i]; word != 0; word &= word - 1) {
+                result[size++] = (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategorySet)) {
+            return false;
+        }
+        long[] a = words;
+        long[] b = ((CategorySet) o).words;
+        for (int i = 0; i < Math.max(a.length, b.length); i++) {
+            if ((i < a.length ? a[i] : 0) != (i < b.length ? b[i] : 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // 忽略末尾的空字，与equals一致
+        int end = words.length;
+        while (end > 0 && words[end - 1] == 0) {
+            end--;
+        }
+        return Arrays.hashCode(Arrays.copyOf(words, end));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,135 @@
+package com.onesaf.farm.index;
+
+import com.onesaf.farm.model.Feature;
+import com.onesaf.farm.model.FeatureGeometry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 特征代码（如FACC/EDCS代码）到特征类别的索引
+ * <p>
+ * 同一代码通常对应点、线、面几种几何类型的多个特征类别。索引按代码升序保存不重复的代码，
+ * 每个代码的特征类别连续存放（CSR格式），并附带各类别的几何类型，
+ * 因此按代码和按代码加几何类型的查找都只需一次二分查找和一段很短的顺序扫描，不分配任何对象。
+ * 构建完成后不可变，可在多个线程间共享。
+ */
+public final class FeatureCodeIndex {
+    /**
+     * 查找失败时返回的特征类别
+     */
+    public static final int NOT_FOUND = -1;
+
+    public static final FeatureCodeIndex EMPTY = of(List.of());
+
+    private final int[] codes;
+    private final int[] start;
+    private final int[] categories;
+    private final byte[] geometries;
+
+    private FeatureCodeIndex(int[] codes, int[] start, int[] categories, byte[] geometries) {
+        this.codes = codes;
+        this.start = start;
+        this.categories = categories;
+        this.geometries = geometries;
+    }
+
+    /**
+     * 由特征列表构建索引
+     *
+     * @param features 下标为特征类别，不存在的类别为null
+     */
+    public static FeatureCodeIndex of(List<Feature> features) {
+        // 按（代码，类别）排序，高32位为代码，低32位为类别
+        long[] keys = new long[features.size()];
+        int size = 0;
+        for (int category = 0; category < features.size(); category++) {
+            Feature feature = features.get(category);
+            if (feature != null) {
+                keys[size++] = ((long) feature.getCode() << 32) | category;
+            }
+        }
+        Arrays.sort(keys, 0, size);
+
+        int[] codes = new int[size];
+        int[] start = new int[size + 1];
+        int[] categories = new int[size];
+        byte[] geometries = new byte[size];
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            int code = (int) (keys[i] >> 32);
+            int category = (int) keys[i];
+            if (distinct == 0 || codes[distinct - 1] != code) {
+                codes[distinct] = code;
+                start[distinct] = i;
+                distinct++;
+            }
+            categories[i] = category;
+            FeatureGeometry geometry = features.get(category).getGeometry();
+            geometries[i] = (byte) (geometry != null ? geometry.ordinal() : FeatureGeometry.NULL.ordinal());
+        }
+        start[distinct] = size;
+
+        return new FeatureCodeIndex(Arrays.copyOf(codes, distinct), Arrays.copyOf(start, distinct + 1),
+                categories, geometries);
+    }
+
+    /**
+     * 不重复的特征代码数
+     */
+    public int getCodeCount() {
+        return codes.length;
+    }
+
+    /**
+     * 具有该代码的特征类别数
+     */
+    public int getCategoryCount(int code) {
+        int index = Arrays.binarySearch(codes, code);
+        return index >= 0 ? start[index + 1] - start[index] : 0;
+    }
+
+    /**
+     * 具有该代码的特征类别中最小的一个
+     *
+     * @return 特征类别，不存在时返回 {@link #NOT_FOUND}
+     */
+    public int getFirstCategory(int code) {
+        int index = Arrays.binarySearch(codes, code);
+        return index >= 0 ? categories[start[index]] : NOT_FOUND;
+    }
+
+    /**
+     * 把具有该代码的特征类别按升序写入 {@code out}
+     *
+     * @return 具有该代码的特征类别总数，可能大于 {@code out} 的长度，此时只写入前 {@code out.length} 个
+     */
+    public int getCategories(int code, int[] out) {
+        int index = Arrays.binarySearch(codes, code);
+        if (index < 0) {
+            return 0;
+        }
+        int from = start[index];
+        int count = start[index + 1] - from;
+        System.arraycopy(categories, from, out, 0, Math.min(count, out.length));
+        return count;
+    }
+
+    /**
+     * 按特征代码和几何类型查找特征类别
+     *
+     * @return 特征类别，不存在时返回 {@link #NOT_FOUND}；有多个时返回最小的一个
+     */
+    public int getCategory(int code, FeatureGeometry geometry) {
+        int index = Arrays.binarySearch(codes, code);
+        if (index < 0 || geometry == null) {
+            return NOT_FOUND;
+        }
+        for (int i = start[index]; i < start[index + 1]; i++) {
+            if (geometries[i] == geometry.ordinal()) {
+                return categories[i];
+            }
+        }
+        return NOT_FOUND;
+    }
+}
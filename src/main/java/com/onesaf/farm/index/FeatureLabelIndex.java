@@ -0,0 +1,282 @@
+package com.onesaf.farm.index;
+
+import com.onesaf.farm.model.FeatureGeometry;
+import com.onesaf.farm.model.FeatureLabelAndGeometry;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 特征标签和几何类型到特征类别的索引
+ * <p>
+ * 每种几何类型一张开放寻址散列表，槽中保存条目下标。散列值按UTF-16字符计算，
+ * {@link CharSequence} 直接逐字符计算，UTF-8字节片段边解码边计算，两者结果相同，
+ * 因此查找时不需要构造 {@link String} 或组合键对象，整个查找过程不分配任何对象。
+ * <p>
+ * 标签只以UTF-8字节存放在一个 {@link LabelArena} 中，同一标签的各几何类型共用一份；条目保持加入的顺序，
+ * 只记录标签编号、几何类型和特征类别。索引同时保存特征类别到标签编号的反向映射，加载时特征只记录标签编号。
+ * 构建完成后不可变，可在多个线程间共享。
+ */
+public final class FeatureLabelIndex {
+    /**
+     * 查找失败时返回的特征类别
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final FeatureGeometry[] GEOMETRIES = FeatureGeometry.values();
+
+    public static final FeatureLabelIndex EMPTY = new Builder().build();
+
+    private final LabelArena arena;
+
+    // 条目：标签编号、几何类型和特征类别
+    private final int[] labelIds;
+    private final byte[] geometries;
+    private final int[] categories;
+
+    // 每种几何类型一张表，槽中为条目下标加1，0表示空槽
+    private final int[][] slots;
+
+    // 特征类别到标签编号，没有标签为-1
+    private final int[] categoryLabels;
+
+    private FeatureLabelIndex(LabelArena arena, int[] labelIds, byte[] geometries, int[] categories, int[][] slots) {
+        this.arena = arena;
+        this.labelIds = labelIds;
+        this.geometries = geometries;
+        this.categories = categories;
+        this.slots = slots;
+
+        int limit = 0;
+        for (int category : categories) {
+            limit = Math.max(limit, category + 1);
+        }
+        this.categoryLabels = new int[limit];
+        Arrays.fill(categoryLabels, -1);
+        for (int entry = 0; entry < categories.length; entry++) {
+            if (categories[entry] >= 0 && categoryLabels[categories[entry]] < 0) {
+                categoryLabels[categories[entry]] = labelIds[entry];
+            }
+        }
+    }
+
+    /**
+     * 索引中的条目数，即不同的（标签，几何类型）个数
+     */
+    public int size() {
+        return labelIds.length;
+    }
+
+    /**
+     * 存放标签的字节区
+     */
+    public LabelArena getArena() {
+        return arena;
+    }
+
+    /**
+     * 条目的标签在标签区中的编号
+     */
+    public int getEntryLabelId(int entry) {
+        return labelIds[entry];
+    }
+
+    /**
+     * 条目的标签，首次请求时解码
+     */
+    public String getEntryLabel(int entry) {
+        return arena.getString(labelIds[entry]);
+    }
+
+    public FeatureGeometry getEntryGeometry(int entry) {
+        return GEOMETRIES[geometries[entry]];
+    }
+
+    public int getEntryCategory(int entry) {
+        return categories[entry];
+    }
+
+    /**
+     * 特征类别的标签，没有标签时返回null
+     */
+    public String getCategoryLabel(int featureCategory) {
+        int id = getCategoryLabelId(featureCategory);
+        return id >= 0 ? arena.getString(id) : null;
+    }
+
+    /**
+     * 特征类别的标签在标签区中的编号，没有标签时返回-1
+     */
+    public int getCategoryLabelId(int featureCategory) {
+        return Integer.compareUnsigned(featureCategory, categoryLabels.length) < 0 ? categoryLabels[featureCategory] : -1;
+    }
+
+    /**
+     * 按加入顺序复制为标签映射
+     */
+    public Map<FeatureLabelAndGeometry, Integer> toMap() {
+        Map<FeatureLabelAndGeometry, Integer> map = new LinkedHashMap<>(size() * 2);
+        for (int entry = 0; entry < size(); entry++) {
+            map.put(new FeatureLabelAndGeometry(getEntryLabel(entry), getEntryGeometry(entry)), categories[entry]);
+        }
+        return map;
+    }
+
+    /**
+     * 按标签和几何类型查找特征类别
+     *
+     * @return 特征类别，不存在时返回 {@link #NOT_FOUND}
+     */
+    public int getFeatureCategory(CharSequence label, FeatureGeometry geometry) {
+        if (label == null || geometry == null) {
+            return NOT_FOUND;
+        }
+        int hash = LabelHash.hash(label);
+        int[] table = slots[geometry.ordinal()];
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            int id = labelIds[entry];
+            if (arena.hash(id) == hash && arena.contentEquals(id, label)) {
+                return categories[entry];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * 按UTF-8编码的标签片段和几何类型查找特征类别
+     *
+     * @param utf8   包含标签的字节数组
+     * @param offset 标签起始位置
+     * @param length 标签字节数
+     * @return 特征类别，不存在时返回 {@link #NOT_FOUND}
+     */
+    public int getFeatureCategory(byte[] utf8, int offset, int length, FeatureGeometry geometry) {
+        if (utf8 == null || geometry == null) {
+            return NOT_FOUND;
+        }
+        int hash = LabelHash.hash(utf8, offset, length);
+        int[] table = slots[geometry.ordinal()];
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            int id = labelIds[entry];
+            if (arena.hash(id) == hash && arena.contentEquals(id, utf8, offset, length)) {
+                return categories[entry];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * 标签区、条目和散列表的估算字节数
+     */
+    public long getEstimatedBytes() {
+        long bytes = arena.getEstimatedBytes() + (long) labelIds.length * (2 * Integer.BYTES + 1)
+                + (long) categoryLabels.length * Integer.BYTES;
+        for (int[] table : slots) {
+            bytes += (long) table.length * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * 按文件顺序逐个加入条目；同一标签和几何类型再次出现时只更新特征类别，与写入 {@link Map} 的结果一致。
+     * 实例不是线程安全的。
+     */
+    public static final class Builder {
+        private final LabelArena.Builder arena = new LabelArena.Builder();
+        private int[] labelIds = new int[64];
+        private byte[] geometries = new byte[64];
+        private int[] categories = new int[64];
+        private int count;
+
+        // 加入时去重用的表，按标签编号和几何类型散列，槽中为条目下标加1
+        private int[] slots = new int[128];
+
+        /**
+         * 加入UTF-8编码的标签片段
+         */
+        public Builder add(byte[] utf8, int offset, int length, FeatureGeometry geometry, int category) {
+            return addEntry(arena.add(utf8, offset, length), geometry, category);
+        }
+
+        public Builder add(String label, FeatureGeometry geometry, int category) {
+            return addEntry(arena.add(label), geometry, category);
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public FeatureLabelIndex build() {
+            LabelArena labels = arena.build();
+            int[] counts = new int[GEOMETRIES.length];
+            for (int entry = 0; entry < count; entry++) {
+                counts[geometries[entry]]++;
+            }
+            int[][] tables = new int[GEOMETRIES.length][];
+            for (int g = 0; g < GEOMETRIES.length; g++) {
+                // 装载因子不超过0.5
+                tables[g] = new int[Integer.highestOneBit(Math.max(1, counts[g]) * 2 - 1) << 1];
+            }
+            for (int entry = 0; entry < count; entry++) {
+                int[] table = tables[geometries[entry]];
+                int mask = table.length - 1;
+                int slot = labels.hash(labelIds[entry]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry + 1;
+            }
+            return new FeatureLabelIndex(labels, Arrays.copyOf(labelIds, count), Arrays.copyOf(geometries, count),
+                    Arrays.copyOf(categories, count), tables);
+        }
+
+        private Builder addEntry(int labelId, FeatureGeometry geometry, int category) {
+            int mask = slots.length - 1;
+            int slot = entryHash(labelId, geometry.ordinal()) & mask;
+            while (slots[slot] != 0) {
+                int entry = slots[slot] - 1;
+                if (labelIds[entry] == labelId && geometries[entry] == geometry.ordinal()) {
+                    categories[entry] = category;
+                    return this;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (count == labelIds.length) {
+                labelIds = Arrays.copyOf(labelIds, count * 2);
+                geometries = Arrays.copyOf(geometries, count * 2);
+                categories = Arrays.copyOf(categories, count * 2);
+            }
+            labelIds[count] = labelId;
+            geometries[count] = (byte) geometry.ordinal();
+            categories[count] = category;
+            slots[slot] = ++count;
+            if (count * 2 > slots.length) {
+                rehash();
+            }
+            return this;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int entry = 0; entry < count; entry++) {
+                int slot = entryHash(labelIds[entry], geometries[entry]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry + 1;
+            }
+        }
+
+        private static int entryHash(int labelId, int geometry) {
+            int hash = (labelId * GEOMETRIES.length + geometry) * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.onesaf.farm.index;
+
+import com.onesaf.farm.model.FeatureGeometry;
+import com.onesaf.farm.model.FeatureLabelAndGeometry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * 特征标签的前缀索引，用于输入提示
+ * <p>
+ * 所有（标签，几何类型）条目按忽略大小写的标签排序，具有同一前缀的条目是连续的一段，
+ * 两次二分查找即可确定范围。条目只保存标签在 {@link LabelArena} 中的编号，排序和前缀比较都直接在UTF-8字节上逐字符转小写，
+ * 构建和查询都不构造字符串，查询不分配任何对象；{@link #getLabel(int)} 请求时才由标签区解码。
+ * 构建完成后不可变，可在多个线程间共享。
+ */
+public final class FeatureLabelPrefixIndex {
+    private static final FeatureGeometry[] GEOMETRIES = FeatureGeometry.values();
+
+    public static final FeatureLabelPrefixIndex EMPTY = of(Map.of());
+
+    private final LabelArena arena;
+
+    // 按（小写标签，原标签，几何类型）排序的条目
+    private final int[] labelIds;
+    private final byte[] geometries;
+    private final int[] categories;
+
+    private FeatureLabelPrefixIndex(LabelArena arena, int[] labelIds, byte[] geometries, int[] categories) {
+        this.arena = arena;
+        this.labelIds = labelIds;
+        this.geometries = geometries;
+        this.categories = categories;
+    }
+
+    /**
+     * 由标签映射构建索引
+     */
+    public static FeatureLabelPrefixIndex of(Map<FeatureLabelAndGeometry, Integer> labelsToCategories) {
+        int size = labelsToCategories.size();
+        LabelArena.Builder arena = new LabelArena.Builder();
+        int[] labelIds = new int[size];
+        byte[] geometries = new byte[size];
+        int[] categories = new int[size];
+
+        int i = 0;
+        for (Map.Entry<FeatureLabelAndGeometry, Integer> entry : labelsToCategories.entrySet()) {
+            labelIds[i] = arena.add(entry.getKey().getLabel());
+            geometries[i] = (byte) entry.getKey().getGeometry().ordinal();
+            categories[i] = entry.getValue();
+            i++;
+        }
+        return sorted(arena.build(), labelIds, geometries, categories);
+    }
+
+    /**
+     * 由标签索引的条目构建索引，与标签索引共用同一个标签区
+     */
+    public static FeatureLabelPrefixIndex of(FeatureLabelIndex labelIndex) {
+        int size = labelIndex.size();
+        int[] labelIds = new int[size];
+        byte[] geometries = new byte[size];
+        int[] categories = new int[size];
+        for (int i = 0; i < size; i++) {
+            labelIds[i] = labelIndex.getEntryLabelId(i);
+            geometries[i] = (byte) labelIndex.getEntryGeometry(i).ordinal();
+            categories[i] = labelIndex.getEntryCategory(i);
+        }
+        return sorted(labelIndex.getArena(), labelIds, geometries, categories);
+    }
+
+    private static FeatureLabelPrefixIndex sorted(LabelArena arena, int[] labelIds, byte[] geometries, int[] categories) {
+        int size = labelIds.length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = labelIds[a] == labelIds[b] ? 0 : arena.compareFolded(labelIds[a], labelIds[b]);
+            return c != 0 ? c : Byte.compare(geometries[a], geometries[b]);
+        });
+
+        int[] sortedLabelIds = new int[size];
+        byte[] sortedGeometries = new byte[size];
+        int[] sortedCategories = new int[size];
+        for (int j = 0; j < size; j++) {
+            sortedLabelIds[j] = labelIds[order[j]];
+            sortedGeometries[j] = geometries[order[j]];
+            sortedCategories[j] = categories[order[j]];
+        }
+        return new FeatureLabelPrefixIndex(arena, sortedLabelIds, sortedGeometries, sortedCategories);
+    }
+
+    public int size() {
+        return labelIds.length;
+    }
+
+    /**
+     * 标签以 {@code prefix} 开头（忽略大小写）的第一个条目，与 {@link #prefixEnd} 一起确定范围
+     */
+    public int prefixStart(CharSequence prefix) {
+        int low = 0;
+        int high = labelIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.compareFoldedPrefix(labelIds[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 标签以 {@code prefix} 开头（忽略大小写）的最后一个条目之后的位置
+     */
+    public int prefixEnd(CharSequence prefix) {
+        int low = 0;
+        int high = labelIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.compareFoldedPrefix(labelIds[mid], prefix) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 标签以 {@code prefix} 开头的条目数
+     */
+    public int countPrefix(CharSequence prefix) {
+        return prefixEnd(prefix) - prefixStart(prefix);
+    }
+
+    /**
+     * 按标签顺序对前缀匹配的条目调用 {@code action}，参数为条目下标
+     *
+     * @param limit 最多访问的条目数
+     * @return 访问的条目数
+     */
+    public int forEachPrefix(CharSequence prefix, int limit, IntConsumer action) {
+        int from = prefixStart(prefix);
+        int to = Math.min(prefixEnd(prefix), from + Math.max(0, limit));
+        for (int entry = from; entry < to; entry++) {
+            action.accept(entry);
+        }
+        return to - from;
+    }
+
+    /**
+     * 条目的原始标签，首次请求时由标签区解码
+     */
+    public String getLabel(int entry) {
+        return arena.getString(labelIds[entry]);
+    }
+
+    /**
+     * 条目的标签在标签区中的编号
+     */
+    public int getLabelId(int entry) {
+        return labelIds[entry];
+    }
+
+    /**
+     * 条目的几何类型
+     */
+    public FeatureGeometry getGeometry(int entry) {
+        return GEOMETRIES[geometries[entry]];
+    }
+
+    /**
+     * 条目的特征类别
+     */
+    public int getCategory(int entry) {
+        return categories[entry];
+    }
+}
@@ -0,0 +1,396 @@
+package com.onesaf.farm.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 紧凑存放标签的UTF-8字节区
+ * <p>
+ * 所有标签的UTF-8编码依次存放在一个字节数组中，由偏移表确定每个标签的范围，相同的标签只存放一次，
+ * 编号按首次加入的顺序分配。{@link String} 只在 {@link #getString(int)} 首次请求某个标签时才解码并缓存，
+ * 之后的请求返回同一个对象；比较、散列和忽略大小写的前缀比较都直接在字节上进行。
+ * <p>
+ * 只接受格式正确的UTF-8，因此字节上的散列和比较与解码后的字符串一致；来源不可信的字节先用
+ * {@link #replaceMalformedUtf8(byte[], int, int)} 替换畸形序列。
+ * <p>
+ * 构建完成后不可变，可在多个线程间共享；字符串缓存的竞争只会导致重复解码，各线程看到的内容相同。
+ */
+public final class LabelArena {
+    public static final LabelArena EMPTY = new Builder().build();
+
+    private final byte[] bytes;
+
+    // 第i个标签占用 [offsets[i], offsets[i + 1])
+    private final int[] offsets;
+    private final int[] hashes;
+
+    // 按需解码的字符串，未解码为null
+    private final String[] strings;
+
+    private LabelArena(byte[] bytes, int[] offsets, int[] hashes) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.hashes = hashes;
+        this.strings = new String[hashes.length];
+    }
+
+    /**
+     * 不同标签的个数
+     */
+    public int size() {
+        return hashes.length;
+    }
+
+    /**
+     * 所有标签的UTF-8字节数
+     */
+    public int getByteCount() {
+        return bytes.length;
+    }
+
+    /**
+     * 标签的UTF-8字节数
+     */
+    public int getLength(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * 标签UTF-8编码的副本
+     */
+    public byte[] getBytes(int id) {
+        return Arrays.copyOfRange(bytes, offsets[id], offsets[id + 1]);
+    }
+
+    /**
+     * 标签的散列值，与 {@code LabelHash} 对相同内容的计算结果一致
+     */
+    int hash(int id) {
+        return hashes[id];
+    }
+
+    /**
+     * 标签的字符串，首次请求时解码并缓存
+     */
+    public String getString(int id) {
+        String string = strings[id];
+        if (string == null) {
+            string = new String(bytes, offsets[id], getLength(id), StandardCharsets.UTF_8);
+            strings[id] = string;
+        }
+        return string;
+    }
+
+    /**
+     * 标签内容是否与 {@code other} 相同
+     * <p>
+     * ASCII标签直接逐字节比较，不构造字符串；含非ASCII字节时与 {@link #getString(int)} 比较，结果与字符串比较一致。
+     */
+    public boolean contentEquals(int id, CharSequence other) {
+        String string = strings[id];
+        if (string != null) {
+            return LabelHash.contentEquals(string, other);
+        }
+        int start = offsets[id];
+        int end = offsets[id + 1];
+        if (end - start < other.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            int b = bytes[i];
+            if (b < 0) {
+                return LabelHash.contentEquals(getString(id), other);
+            }
+            if (i - start >= other.length() || other.charAt(i - start) != b) {
+                return false;
+            }
+        }
+        return end - start == other.length();
+    }
+
+    /**
+     * 标签逐字符转小写后与 {@code prefix} 逐字符转小写后的前 {@code prefix.length()} 个字符比较，不构造字符串
+     *
+     * @return 标签以前缀开头（忽略大小写）时为0，否则为标签相对前缀的顺序
+     */
+    public int compareFoldedPrefix(int id, CharSequence prefix) {
+        int end = offsets[id + 1];
+        int cursor = offsets[id];
+        for (int i = 0; i < prefix.length(); i++) {
+            if ((cursor & Integer.MAX_VALUE) == end) {
+                return -1;
+            }
+            char a = Character.toLowerCase(charAt(cursor));
+            char b = Character.toLowerCase(prefix.charAt(i));
+            if (a != b) {
+                return a - b;
+            }
+            cursor = next(cursor);
+        }
+        return 0;
+    }
+
+    /**
+     * 按逐字符转小写后的字典序比较两个标签，相同时再按原字符比较，与对解码后的字符串比较的结果一致
+     */
+    int compareFolded(int a, int b) {
+        int c = compare(a, b, true);
+        return c != 0 ? c : compare(a, b, false);
+    }
+
+    private int compare(int a, int b, boolean fold) {
+        int endA = offsets[a + 1];
+        int endB = offsets[b + 1];
+        int cursorA = offsets[a];
+        int cursorB = offsets[b];
+        while ((cursorA & Integer.MAX_VALUE) != endA && (cursorB & Integer.MAX_VALUE) != endB) {
+            char ca = charAt(cursorA);
+            char cb = charAt(cursorB);
+            if (fold) {
+                ca = Character.toLowerCase(ca);
+                cb = Character.toLowerCase(cb);
+            }
+            if (ca != cb) {
+                return ca - cb;
+            }
+            cursorA = next(cursorA);
+            cursorB = next(cursorB);
+        }
+        return Boolean.compare((cursorA & Integer.MAX_VALUE) != endA, (cursorB & Integer.MAX_VALUE) != endB);
+    }
+
+    // 按UTF-16字符遍历标签的游标：低31位为字符起始字节的位置，最高位表示正处于补充平面字符的低代理项
+
+    private char charAt(int cursor) {
+        int position = cursor & Integer.MAX_VALUE;
+        int b = bytes[position] & 0xFF;
+        if (b < 0x80) {
+            return (char) b;
+        }
+        if (b < 0xE0) {
+            return (char) (((b & 0x1F) << 6) | (bytes[position + 1] & 0x3F));
+        }
+        if (b < 0xF0) {
+            return (char) (((b & 0x0F) << 12) | ((bytes[position + 1] & 0x3F) << 6) | (bytes[position + 2] & 0x3F));
+        }
+        int codePoint = ((b & 0x07) << 18) | ((bytes[position + 1] & 0x3F) << 12)
+                | ((bytes[position + 2] & 0x3F) << 6) | (bytes[position + 3] & 0x3F);
+        return cursor < 0 ? Character.lowSurrogate(codePoint) : Character.highSurrogate(codePoint);
+    }
+
+    private int next(int cursor) {
+        int b = bytes[cursor & Integer.MAX_VALUE] & 0xFF;
+        if (b < 0x80) {
+            return cursor + 1;
+        }
+        if (b < 0xE0) {
+            return cursor + 2;
+        }
+        if (b < 0xF0) {
+            return cursor + 3;
+        }
+        return cursor < 0 ? (cursor & Integer.MAX_VALUE) + 4 : cursor | Integer.MIN_VALUE;
+    }
+
+    /**
+     * 标签内容是否与UTF-8字节片段相同
+     */
+    public boolean contentEquals(int id, byte[] utf8, int offset, int length) {
+        return Arrays.equals(bytes, offsets[id], offsets[id + 1], utf8, offset, offset + length);
+    }
+
+    /**
+     * 字节区和偏移表的估算字节数，含已解码的字符串
+     */
+    public long getEstimatedBytes() {
+        long estimated = bytes.length + (long) offsets.length * Integer.BYTES
+                + (long) hashes.length * (Integer.BYTES + 8);
+        for (String string : strings) {
+            if (string != null) {
+                estimated += 48 + string.length() * 2L;
+            }
+        }
+        return estimated;
+    }
+
+    @Override
+    public String toString() {
+        return "LabelArena(labels=" + size() + ", bytes=" + bytes.length + ")";
+    }
+
+    /**
+     * 字节片段是否为格式正确的UTF-8：没有超长编码、代理项、超出U+10FFFF的码点或不完整的序列
+     */
+    public static boolean isValidUtf8(byte[] utf8, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            int sequence = sequenceLength(utf8, i, end);
+            if (sequence < 0) {
+                return false;
+            }
+            i += sequence;
+        }
+        return true;
+    }
+
+    /**
+     * 把字节片段中的畸形序列替换为U+FFFD（EF BF BD），返回格式正确的UTF-8副本
+     * <p>
+     * 每个畸形序列的最长有效前缀替换为一个U+FFFD，与JDK的UTF-8解码器相同，
+     * 因此结果与 {@code new String(utf8, offset, length, UTF_8)} 的UTF-8编码一致。
+     */
+    public static byte[] replaceMalformedUtf8(byte[] utf8, int offset, int length) {
+        byte[] result = new byte[length * 3];
+        int size = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            int sequence = sequenceLength(utf8, i, end);
+            if (sequence > 0) {
+                System.arraycopy(utf8, i, result, size, sequence);
+                size += sequence;
+                i += sequence;
+            } else {
+                result[size++] = (byte) 0xEF;
+                result[size++] = (byte) 0xBF;
+                result[size++] = (byte) 0xBD;
+                i -= sequence;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 从位置i开始的一个字符的字节数；序列畸形时返回其最长有效前缀字节数的相反数（至少为1）
+     */
+    private static int sequenceLength(byte[] utf8, int i, int end) {
+        int b = utf8[i] & 0xFF;
+        if (b < 0x80) {
+            return 1;
+        }
+        int continuation;
+        int min = 0x80;
+        int max = 0xBF;
+        if (b >= 0xC2 && b <= 0xDF) {
+            continuation = 1;
+        } else if (b >= 0xE0 && b <= 0xEF) {
+            continuation = 2;
+            if (b == 0xE0) {
+                min = 0xA0;
+            }
+        } else if (b >= 0xF0 && b <= 0xF4) {
+            continuation = 3;
+            if (b == 0xF0) {
+                min = 0x90;
+            } else if (b == 0xF4) {
+                max = 0x8F;
+            }
+        } else {
+            return -1;
+        }
+        // 第二个字节的范围取决于首字节，其余后续字节都在80..BF
+        for (int k = 1; k <= continuation; k++) {
+            if (i + k >= end) {
+                return -k;
+            }
+            int next = utf8[i + k] & 0xFF;
+            if (next < min || next > max) {
+                return -k;
+            }
+            min = 0x80;
+            max = 0xBF;
+        }
+        // 代理项（ED A0..BF xx）与JDK一致，整个序列作为一个畸形单位
+        if (b == 0xED && (utf8[i + 1] & 0xFF) >= 0xA0) {
+            return -3;
+        }
+        return continuation + 1;
+    }
+
+    /**
+     * 逐个加入标签，重复的标签返回已有的编号。实例不是线程安全的。
+     */
+    public static final class Builder {
+        private byte[] bytes = new byte[1024];
+        private int byteCount;
+        private int[] offsets = new int[65];
+        private int[] hashes = new int[64];
+        private int count;
+
+        // 去重用的开放寻址表，槽中为编号加1，0表示空槽
+        private int[] slots = new int[128];
+
+        /**
+         * 加入UTF-8编码的标签片段
+         *
+         * @return 标签的编号
+         * @throws IllegalArgumentException 片段不是格式正确的UTF-8
+         */
+        public int add(byte[] utf8, int offset, int length) {
+            if (!isValidUtf8(utf8, offset, length)) {
+                throw new IllegalArgumentException("标签不是有效的UTF-8编码");
+            }
+            int hash = LabelHash.hash(utf8, offset, length);
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != 0) {
+                int id = slots[slot] - 1;
+                if (hashes[id] == hash && Arrays.equals(bytes, offsets[id], offsets[id + 1], utf8, offset, offset + length)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (byteCount + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + length));
+            }
+            System.arraycopy(utf8, offset, bytes, byteCount, length);
+            byteCount += length;
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            int id = count++;
+            hashes[id] = hash;
+            offsets[id + 1] = byteCount;
+            slots[slot] = id + 1;
+            // 装载因子不超过0.5
+            if (count * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        /**
+         * 加入字符串标签
+         *
+         * @return 标签的编号
+         */
+        public int add(String label) {
+            byte[] utf8 = label.getBytes(StandardCharsets.UTF_8);
+            return add(utf8, 0, utf8.length);
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public LabelArena build() {
+            return new LabelArena(Arrays.copyOf(bytes, byteCount), Arrays.copyOf(offsets, count + 1),
+                    Arrays.copyOf(hashes, count));
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < count; id++) {
+                int slot = hashes[id] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id + 1;
+            }
+        }
+    }
+}
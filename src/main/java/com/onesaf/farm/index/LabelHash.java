@@ -0,0 +1,71 @@
+package com.onesaf.farm.index;
+
+/**
+ * 标签索引共用的散列和比较
+ * <p>
+ * 散列使用FNV-1a，按UTF-16字符计算；UTF-8字节片段边解码边计算，结果与对应字符串相同，
+ * 因此两种查找方式都不需要构造 {@link String}。
+ */
+final class LabelHash {
+    private LabelHash() {
+    }
+
+    static boolean contentEquals(String label, CharSequence other) {
+        if (other instanceof String) {
+            return label.equals(other);
+        }
+        if (label.length() != other.length()) {
+            return false;
+        }
+        for (int i = 0; i < label.length(); i++) {
+            if (label.charAt(i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int hash(CharSequence label) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < label.length(); i++) {
+            hash = (hash ^ label.charAt(i)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * 边解码边计算，有效UTF-8的结果与对应字符串相同
+     * <p>
+     * {@link LabelArena} 只接受有效UTF-8，无效的查询片段按U+FFFD计算，逐字节比较时不会与任何标签相同。
+     */
+    static int hash(byte[] utf8, int offset, int length) {
+        int hash = 0x811C9DC5;
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            int b = utf8[i++] & 0xFF;
+            int codePoint;
+            if (b < 0x80) {
+                codePoint = b;
+            } else if (b >= 0xC0 && b < 0xE0 && i < end) {
+                codePoint = ((b & 0x1F) << 6) | (utf8[i++] & 0x3F);
+            } else if (b >= 0xE0 && b < 0xF0 && i + 1 < end) {
+                codePoint = ((b & 0x0F) << 12) | ((utf8[i] & 0x3F) << 6) | (utf8[i + 1] & 0x3F);
+                i += 2;
+            } else if (b >= 0xF0 && i + 2 < end) {
+                codePoint = ((b & 0x07) << 18) | ((utf8[i] & 0x3F) << 12) | ((utf8[i + 1] & 0x3F) << 6) | (utf8[i + 2] & 0x3F);
+                i += 3;
+            } else {
+                codePoint = 0xFFFD;
+            }
+
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                hash = (hash ^ Character.highSurrogate(codePoint)) * 0x01000193;
+                hash = (hash ^ Character.lowSurrogate(codePoint)) * 0x01000193;
+            } else {
+                hash = (hash ^ codePoint) * 0x01000193;
+            }
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
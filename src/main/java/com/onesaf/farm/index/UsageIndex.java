@@ -0,0 +1,139 @@
+package com.onesaf.farm.index;
+
+import com.onesaf.farm.model.Feature;
+import com.onesaf.farm.model.UsageBitmask;
+
+import java.util.List;
+
+/**
+ * 使用位掩码（{@link UsageBitmask}）到特征类别的倒排索引
+ * <p>
+ * 加载时为每个标志建立一个特征类别位图，"哪些类别阻挡车辆视线"之类的查询直接返回对应位图，
+ * 多个标志的组合是逐字的与、或、非运算，不再扫描全部特征。单个类别的判断直接检查该类别的位掩码。
+ * 构建完成后不可变，可在多个线程间共享。
+ */
+public final class UsageIndex {
+    public static final UsageIndex EMPTY = of(List.of());
+
+    // 各类别的使用位掩码，不存在的类别为0
+    private final int[] usages;
+
+    // 存在的特征类别
+    private final CategorySet present;
+
+    // 按位序索引的标志位图
+    private final CategorySet[] flags;
+
+    private UsageIndex(int[] usages, CategorySet present, CategorySet[] flags) {
+        this.usages = usages;
+        this.present = present;
+        this.flags = flags;
+    }
+
+    /**
+     * 由特征列表构建索引
+     *
+     * @param features 下标为特征类别，不存在的类别为null
+     */
+    public static UsageIndex of(List<Feature> features) {
+        int categories = features.size();
+        int words = (categories + 63) >>> 6;
+        int[] usages = new int[categories];
+        long[] present = new long[words];
+        long[][] flags = new long[UsageBitmask.FLAG_COUNT][words];
+        for (int category = 0; category < categories; category++) {
+            Feature feature = features.get(category);
+            if (feature == null) {
+                continue;
+            }
+            int usage = feature.getUsageBitmask();
+            usages[category] = usage;
+            present[category >>> 6] |= 1L << category;
+            for (int bits = usage & UsageBitmask.ALL; bits != 0; bits &= bits - 1) {
+                flags[Integer.numberOfTrailingZeros(bits)][category >>> 6] |= 1L << category;
+            }
+        }
+
+        CategorySet[] flagSets = new CategorySet[flags.length];
+        for (int bit = 0; bit < flags.length; bit++) {
+            flagSets[bit] = new CategorySet(flags[bit]);
+        }
+        return new UsageIndex(usages, new CategorySet(present), flagSets);
+    }
+
+    /**
+     * 所有存在的特征类别
+     */
+    public CategorySet getCategories() {
+        return present;
+    }
+
+    /**
+     * 特征类别的使用位掩码，类别不存在时返回0
+     */
+    public int getUsage(int category) {
+        return category >= 0 && category < usages.length ? usages[category] : 0;
+    }
+
+    /**
+     * 特征类别是否具有 {@code bitmask} 中的全部标志
+     */
+    public boolean hasAll(int category, int bitmask) {
+        return (getUsage(category) & bitmask) == bitmask && present.contains(category);
+    }
+
+    /**
+     * 特征类别是否具有 {@code bitmask} 中的任一标志
+     */
+    public boolean hasAny(int category, int bitmask) {
+        return (getUsage(category) & bitmask) != 0;
+    }
+
+    /**
+     * 具有单个标志的特征类别
+     *
+     * @param flag {@link UsageBitmask} 中的单个标志，如 {@link UsageBitmask#BLOCKS_VEH_LOS}
+     */
+    public CategorySet withFlag(int flag) {
+        if (Integer.bitCount(flag) != 1 || (flag & UsageBitmask.ALL) == 0) {
+            throw new IllegalArgumentException("不是单个使用位掩码标志: 0x" + Integer.toHexString(flag));
+        }
+        return flags[Integer.numberOfTrailingZeros(flag)];
+    }
+
+    /**
+     * 具有 {@code bitmask} 中全部标志的特征类别（与），{@code bitmask} 为0时返回全部类别
+     */
+    public CategorySet withAll(int bitmask) {
+        CategorySet result = present;
+        for (int bits = checkBitmask(bitmask); bits != 0; bits &= bits - 1) {
+            result = result.and(flags[Integer.numberOfTrailingZeros(bits)]);
+        }
+        return result;
+    }
+
+    /**
+     * 具有 {@code bitmask} 中任一标志的特征类别（或）
+     */
+    public CategorySet withAny(int bitmask) {
+        CategorySet result = CategorySet.empty(0);
+        for (int bits = checkBitmask(bitmask); bits != 0; bits &= bits - 1) {
+            result = result.or(flags[Integer.numberOfTrailingZeros(bits)]);
+        }
+        return result;
+    }
+
+    /**
+     * 不具有 {@code bitmask} 中任何标志的特征类别（非）
+     */
+    public CategorySet withNone(int bitmask) {
+        return present.andNot(withAny(bitmask));
+    }
+
+    private static int checkBitmask(int bitmask) {
+        if ((bitmask & ~UsageBitmask.ALL) != 0) {
+            throw new IllegalArgumentException("未定义的使用位掩码: 0x" + Integer.toHexString(bitmask & ~UsageBitmask.ALL));
+        }
+        return bitmask;
+    }
+}
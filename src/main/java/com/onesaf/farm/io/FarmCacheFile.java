@@ -0,0 +1,172 @@
+package com.onesaf.farm.io;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * 预编译的FARM快照缓存文件
+ * <p>
+ * 文件由定长文件头和负载组成，全部为小端字节序：
+ * <pre>
+ * int32 魔数 "FRMC"    int32 格式版本
+ * int64 源文件大小     int64 源文件修改时间（毫秒）
+ * int32 源文件CRC32C   int32 负载长度
+ * int32 负载CRC32C     int32 保留
+ * byte[] 负载
+ * </pre>
+ * 负载的内容由调用方决定。读取时整个文件一次内存映射，文件头与 {@link Key} 不一致、长度或校验和不符时
+ * 视为过期或损坏，返回null，由调用方重新解析并重写缓存。写入先写临时文件再原子替换，
+ * 其他进程不会读到写了一半的缓存。
+ */
+@Slf4j
+public final class FarmCacheFile {
+    /**
+     * 魔数，小端读取时为 "FRMC"
+     */
+    public static final int MAGIC = 0x434D5246;
+
+    /**
+     * 缓存格式版本，负载布局变化时递增
+     */
+    public static final int FORMAT_VERSION = 3;
+
+    private static final int HEADER_BYTES = 40;
+
+    private FarmCacheFile() {
+    }
+
+    /**
+     * 缓存对应的源文件标识：大小、修改时间和内容校验和
+     */
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    public static final class Key {
+        private final long size;
+        private final long lastModified;
+        private final int contentHash;
+
+        public Key(long size, long lastModified, int contentHash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+
+        /**
+         * 读取源文件的属性并计算内容校验和
+         */
+        public static Key of(Path source) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            CRC32C crc = new CRC32C();
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                if (channel.size() > 0) {
+                    crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            }
+            return new Key(attributes.size(), attributes.lastModifiedTime().toMillis(), (int) crc.getValue());
+        }
+    }
+
+    /**
+     * 读取缓存负载
+     *
+     * @param cacheFile 缓存文件
+     * @param key       当前源文件的标识
+     * @return 小端字节序的只读负载；缓存不存在、过期或损坏时返回null
+     */
+    public static ByteBuffer read(Path cacheFile, Key key) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                log.warn("FARM缓存文件长度异常，忽略: {}", cacheFile);
+                return null;
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            log.warn("无法读取FARM缓存文件，忽略: {}", cacheFile, e);
+            return null;
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION) {
+            log.warn("FARM缓存文件格式不匹配，忽略: {}", cacheFile);
+            return null;
+        }
+        Key cached = new Key(mapped.getLong(8), mapped.getLong(16), mapped.getInt(24));
+        if (!cached.equals(key)) {
+            log.info("FARM缓存已过期: 缓存 {}, 源文件 {}", cached, key);
+            return null;
+        }
+
+        int payloadLength = mapped.getInt(28);
+        if (payloadLength != mapped.capacity() - HEADER_BYTES) {
+            log.warn("FARM缓存文件长度不符，忽略: {}", cacheFile);
+            return null;
+        }
+        mapped.position(HEADER_BYTES);
+        ByteBuffer payload = mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != mapped.getInt(32)) {
+            log.warn("FARM缓存文件校验和不符，忽略: {}", cacheFile);
+            return null;
+        }
+        return payload.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 写入缓存，先写同目录下的临时文件再原子替换
+     *
+     * @param payload 负载，从当前位置写到界限，不修改其位置
+     */
+    public static void write(Path cacheFile, Key key, ByteBuffer payload) throws IOException {
+        Path directory = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        ByteBuffer body = payload.duplicate();
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION)
+                .putLong(key.getSize()).putLong(key.getLastModified())
+                .putInt(key.getContentHash()).putInt(body.remaining())
+                .putInt((int) crc.getValue()).putInt(0);
+        header.flip();
+
+        // 临时文件名带进程号，多个进程同时重建缓存时互不干扰
+        Path temp = directory.resolve(cacheFile.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining() || body.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, body});
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
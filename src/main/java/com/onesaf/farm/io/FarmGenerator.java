@@ -0,0 +1,318 @@
+package com.onesaf.farm.io;
+
+import com.onesaf.farm.model.AttributeUnits;
+import com.onesaf.farm.model.UsageBitmask;
+import com.onesaf.farm.util.BinaryWriter;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * 按给定规模生成合成的farm.dat，用于压力测试和往返测试
+ * <p>
+ * 生成的数据在结构上接近真实文件：属性代码递增但不连续，每个属性代码列有固定的数据类型，
+ * 各类型的比例与内置 {@code farm.dat} 相近；枚举属性有一个基础值域，各特征类别使用其中的一部分；
+ * 取值范围满足 {@code min <= default <= max}；每行的偏移量按 {@code OverlayLayout} 的槽位大小紧凑排列，
+ * 特征的 {@code attributesOverlaySize} 与之一致；同一特征代码可以有多个几何类型，每个对应一个特征类别和一个标签；
+ * 每个属性代码列有一个属性条目，数据类型与该列相同，枚举属性的单位为 {@code ENUMERATION_UNITS}。
+ * <p>
+ * 单元格直接经 {@link FarmWriter} 写出，除了每列的类型和枚举基础值域外不保留表内容，内存占用与行数无关。
+ * 相同的选项和种子总是生成相同的字节。
+ */
+@Getter
+@Builder
+@ToString
+public class FarmGenerator {
+    // FARM表维度和映射大小以UInt16存储
+    private static final int MAX_UINT16 = 0xFFFF;
+
+    private static final int INT32 = 1;
+    private static final int FLOAT64 = 2;
+    private static final int STRING = 3;
+    private static final int ENUMERATION = 4;
+    private static final int BOOLEAN = 5;
+    private static final int UUID = 6;
+
+    // 覆盖中各数据类型占用的字节数，下标为类型标记，与OverlayLayout相同
+    private static final int[] SLOT_BYTES = {0, 4, 8, 8, 8, 4, 16};
+
+    // 各数据类型的累计比例（百分比），按类型标记顺序
+    private static final int[] TYPE_PERCENTILES = {0, 30, 55, 59, 89, 99, 100};
+
+    private static final int[] GEOMETRIES = {1, 2, 3};
+
+    /**
+     * 随机数种子
+     */
+    @Builder.Default
+    private final long seed = 0L;
+
+    /**
+     * 特征类别数，即FARM表行数
+     */
+    @Builder.Default
+    private final int categories = 384;
+
+    /**
+     * 属性代码数，即FARM表列数
+     */
+    @Builder.Default
+    private final int attributeCodes = 291;
+
+    /**
+     * 每个特征类别平均包含的属性数
+     */
+    @Builder.Default
+    private final int attributesPerCategory = 17;
+
+    /**
+     * 枚举属性基础值域的最大枚举值数
+     */
+    @Builder.Default
+    private final int maxEnumerants = 32;
+
+    /**
+     * 写出的字节序
+     */
+    @Builder.Default
+    private final ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * 生成到文件
+     */
+    public void write(Path file) throws IOException {
+        try (BinaryWriter writer = new BinaryWriter(Files.newOutputStream(file), byteOrder)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * 生成到输出流，完成后刷新但不关闭输出流
+     */
+    public void write(OutputStream out) throws IOException {
+        BinaryWriter writer = new BinaryWriter(out, byteOrder);
+        write(writer);
+        writer.flush();
+    }
+
+    /**
+     * 生成到字节数组
+     */
+    public byte[] generate() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(out);
+        } catch (IOException e) {
+            // 写入内存不会失败
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public void write(BinaryWriter writer) throws IOException {
+        validate();
+        if (writer.getByteOrder() != byteOrder) {
+            throw new IllegalArgumentException("写入器的字节序" + writer.getByteOrder() + "与生成选项" + byteOrder + "不一致");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        FarmWriter farm = new FarmWriter(writer);
+        farm.writeHeader();
+
+        int[] codes = attributeCodes(random);
+        int[] typeTags = new int[codes.length];
+        int[][] domains = new int[codes.length][];
+        for (int column = 0; column < codes.length; column++) {
+            typeTags[column] = typeTag(random);
+            if (typeTags[column] == ENUMERATION) {
+                domains[column] = enumDomain(random);
+            }
+        }
+
+        farm.writeTableDimensions(categories, codes);
+        int[] overlaySizes = new int[categories];
+        int[] validCodes = new int[maxEnumerants];
+        for (int row = 0; row < categories; row++) {
+            overlaySizes[row] = writeRow(farm, random, codes, typeTags, domains, validCodes);
+        }
+
+        // 特征代码依次递增，每个代码有1到3个几何类型，每个几何类型是一个特征类别
+        int[] featureCodes = new int[categories];
+        int[] geometries = new int[categories];
+        int code = 0;
+        for (int category = 0; category < categories; ) {
+            code += 1 + random.nextInt(4);
+            int[] shuffled = GEOMETRIES.clone();
+            shuffle(random, shuffled);
+            int count = Math.min(1 + random.nextInt(shuffled.length), categories - category);
+            for (int i = 0; i < count; i++, category++) {
+                featureCodes[category] = code;
+                geometries[category] = shuffled[i];
+            }
+        }
+
+        farm.writeLabelCount(categories);
+        for (int category = 0; category < categories; category++) {
+            farm.writeLabel(label(featureCodes[category]), geometries[category], category);
+        }
+
+        farm.writeFeatureCount(categories);
+        for (int category = 0; category < categories; category++) {
+            int usageBitmask = (int) (random.nextLong() & UsageBitmask.ALL);
+            farm.writeFeature(category, category, featureCodes[category], geometries[category],
+                    usageBitmask, random.nextInt(100), overlaySizes[category]);
+        }
+
+        farm.writeAttributeCount(codes.length);
+        for (int column = 0; column < codes.length; column++) {
+            int units = typeTags[column] == ENUMERATION ? AttributeUnits.ENUMERATION_UNITS.getValue()
+                    : random.nextInt(AttributeUnits.ENUMERATION_UNITS.getValue());
+            farm.writeAttribute(codes[column], codes[column], typeTags[column], units, random.nextInt(3) == 0);
+        }
+    }
+
+    /**
+     * 特征代码对应的标签
+     */
+    public static String label(int featureCode) {
+        return String.format("FEATURE_%05d", featureCode);
+    }
+
+    private void validate() {
+        checkRange("特征类别数", categories, 1, MAX_UINT16);
+        checkRange("属性代码数", attributeCodes, 1, MAX_UINT16);
+        checkRange("每个特征类别的属性数", attributesPerCategory, 0, attributeCodes);
+        checkRange("最大枚举值数", maxEnumerants, 1, MAX_UINT16);
+        if (byteOrder == null) {
+            throw new IllegalArgumentException("字节序不能为null");
+        }
+    }
+
+    private static void checkRange(String name, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + "超出范围[" + min + ", " + max + "]: " + value);
+        }
+    }
+
+    /**
+     * 递增的属性代码，间隔随机但保证最大值不超过UInt16
+     */
+    private int[] attributeCodes(SplittableRandom random) {
+        int[] codes = new int[attributeCodes];
+        int maxGap = Math.max(1, Math.min(7, (MAX_UINT16 - 1) / attributeCodes));
+        int code = 0;
+        for (int column = 0; column < codes.length; column++) {
+            code += 1 + random.nextInt(maxGap);
+            codes[column] = code;
+        }
+        return codes;
+    }
+
+    private static int typeTag(SplittableRandom random) {
+        int percentile = random.nextInt(100);
+        int typeTag = 1;
+        while (percentile >= TYPE_PERCENTILES[typeTag]) {
+            typeTag++;
+        }
+        return typeTag;
+    }
+
+    /**
+     * 枚举属性的基础值域，枚举代码从1开始递增
+     */
+    private int[] enumDomain(SplittableRandom random) {
+        int size = 2 + random.nextInt(Math.max(1, maxEnumerants - 1));
+        int[] domain = new int[Math.min(size, maxEnumerants)];
+        int code = 0;
+        for (int i = 0; i < domain.length; i++) {
+            code += 1 + random.nextInt(3);
+            domain[i] = code;
+        }
+        return domain;
+    }
+
+    /**
+     * 写出一行，每个属性以 {@code attributesPerCategory / attributeCodes} 的概率出现
+     *
+     * @return 覆盖大小
+     */
+    private int writeRow(FarmWriter farm, SplittableRandom random, int[] codes, int[] typeTags,
+                         int[][] domains, int[] validCodes) throws IOException {
+        double density = (double) attributesPerCategory / codes.length;
+        int offset = 0;
+        for (int column = 0; column < codes.length; column++) {
+            if (random.nextDouble() >= density) {
+                farm.writeEmptyCell();
+                continue;
+            }
+            int typeTag = typeTags[column];
+            switch (typeTag) {
+                case INT32: {
+                    int min = -random.nextInt(1000);
+                    int max = min + random.nextInt(100000);
+                    farm.writeInt32Cell(offset, min + random.nextInt(max - min + 1), min, max);
+                    break;
+                }
+                case FLOAT64: {
+                    double min = -random.nextDouble() * 1000;
+                    double max = min + random.nextDouble() * 100000;
+                    farm.writeFloat64Cell(offset, min + random.nextDouble() * (max - min), min, max);
+                    break;
+                }
+                case STRING:
+                    farm.writeStringCell(offset);
+                    break;
+                case ENUMERATION: {
+                    int count = subset(random, domains[column], validCodes);
+                    farm.writeEnumerationCell(offset, codes[column], validCodes[random.nextInt(count)],
+                            validCodes, count);
+                    break;
+                }
+                case BOOLEAN:
+                    farm.writeBooleanCell(offset, random.nextBoolean());
+                    break;
+                case UUID:
+                    farm.writeUUIDCell(offset);
+                    break;
+                default:
+                    throw new IllegalStateException("未知的数据类型: " + typeTag);
+            }
+            offset += SLOT_BYTES[typeTag];
+        }
+        return offset;
+    }
+
+    /**
+     * 从基础值域中按顺序选取至少一个枚举代码
+     *
+     * @return 选取的个数
+     */
+    private static int subset(SplittableRandom random, int[] domain, int[] validCodes) {
+        int count = 0;
+        for (int code : domain) {
+            if (random.nextInt(4) != 0) {
+                validCodes[count++] = code;
+            }
+        }
+        if (count == 0) {
+            validCodes[count++] = domain[random.nextInt(domain.length)];
+        }
+        return count;
+    }
+
+    private static void shuffle(SplittableRandom random, int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
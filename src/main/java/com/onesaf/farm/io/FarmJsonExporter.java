@@ -0,0 +1,224 @@
+package com.onesaf.farm.io;
+
+import com.onesaf.farm.model.AttributeDataType;
+import com.onesaf.farm.model.AttributeUnits;
+import com.onesaf.farm.model.FeatureGeometry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 把farm.dat流式导出为JSON
+ * <p>
+ * 导出器本身是一个 {@link FarmVisitor}，解析器每回调一次就立即写出对应的JSON片段，
+ * 不构建对象模型，也不为每个节点创建字符串，内存占用只有解析器和 {@link JsonWriter} 的固定缓冲区，与FARM大小无关。
+ * 输出结构：
+ * <pre>
+ * {
+ *   "version": {"version": 8, "format": 0, "update": 0},
+ *   "table": {"rows": 384, "codes": [...], "features": [{"category": 0, "attributes": [{"code": ..., "type": "INT32", ...}]}]},
+ *   "labels": [{"label": "...", "geometry": "POINT", "category": ...}],
+ *   "features": [{"category": ..., "code": ..., "geometry": "AREAL", "usageBitmask": ..., "precedence": ..., "attributesOverlaySize": ...}],
+ *   "attributes": [{"key": ..., "code": ..., "dataType": "ENUMERATION", "units": "ENUMERATION_UNITS", "editable": true}]
+ * }
+ * </pre>
+ * 几何类型、数据类型和单位超出定义范围时写为原始数值。
+ */
+public final class FarmJsonExporter implements FarmVisitor {
+    private static final FeatureGeometry[] GEOMETRIES = FeatureGeometry.values();
+    private static final AttributeDataType[] DATA_TYPES = AttributeDataType.values();
+    private static final AttributeUnits[] UNITS = AttributeUnits.values();
+
+    private final JsonWriter json;
+
+    // 已写入开头的行，-1表示当前没有未结束的行
+    private int openRow = -1;
+
+    public FarmJsonExporter(JsonWriter json) {
+        this.json = json;
+    }
+
+    /**
+     * 导出数据来源的全部内容，完成后刷新但不关闭输出流
+     */
+    public static void export(FarmSource source, OutputStream out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        FarmStreamReader.accept(source, new FarmJsonExporter(json));
+        json.flush();
+    }
+
+    @Override
+    public void visitVersion(int versionNumber, int formatNumber, int updateNumber) throws IOException {
+        json.beginObject();
+        json.name("version").beginObject()
+                .name("version").value(versionNumber)
+                .name("format").value(formatNumber)
+                .name("update").value(updateNumber)
+                .endObject();
+    }
+
+    @Override
+    public void visitTableDimensions(int rows, int[] codes) throws IOException {
+        json.name("table").beginObject();
+        json.name("rows").value(rows);
+        json.name("codes").beginArray();
+        for (int code : codes) {
+            json.value(code);
+        }
+        json.endArray();
+        json.name("features").beginArray();
+    }
+
+    @Override
+    public void visitInt32(int row, int code, int offset, int defaultValue, int minValue, int maxValue)
+            throws IOException {
+        beginCell(row, code, AttributeDataType.INT32, offset);
+        json.name("default").value(defaultValue)
+                .name("min").value(minValue)
+                .name("max").value(maxValue)
+                .endObject();
+    }
+
+    @Override
+    public void visitFloat64(int row, int code, int offset, double defaultValue, double minValue, double maxValue)
+            throws IOException {
+        beginCell(row, code, AttributeDataType.FLOAT64, offset);
+        json.name("default").value(defaultValue)
+                .name("min").value(minValue)
+                .name("max").value(maxValue)
+                .endObject();
+    }
+
+    @Override
+    public void visitString(int row, int code, int offset) throws IOException {
+        beginCell(row, code, AttributeDataType.STRING, offset);
+        json.endObject();
+    }
+
+    @Override
+    public void visitEnumeration(int row, int code, int offset, int eaCode, int defaultCode,
+                                 int[] validCodes, int validCount) throws IOException {
+        beginCell(row, code, AttributeDataType.ENUMERATION, offset);
+        json.name("eaCode").value(eaCode)
+                .name("default").value(defaultCode)
+                .name("valid").beginArray();
+        for (int i = 0; i < validCount; i++) {
+            json.value(validCodes[i]);
+        }
+        json.endArray().endObject();
+    }
+
+    @Override
+    public void visitBoolean(int row, int code, int offset, boolean defaultValue) throws IOException {
+        beginCell(row, code, AttributeDataType.BOOLEAN, offset);
+        json.name("default").value(defaultValue).endObject();
+    }
+
+    @Override
+    public void visitUUID(int row, int code, int offset) throws IOException {
+        beginCell(row, code, AttributeDataType.UUID, offset);
+        json.endObject();
+    }
+
+    @Override
+    public void visitRowEnd(int row) throws IOException {
+        beginRow(row);
+        json.endArray().endObject();
+        openRow = -1;
+    }
+
+    @Override
+    public void visitLabelCount(int count) throws IOException {
+        // FARM表到此结束
+        json.endArray().endObject();
+        json.name("labels").beginArray();
+    }
+
+    @Override
+    public void visitLabel(byte[] utf8, int length, int geometry, int category) throws IOException {
+        json.beginObject();
+        json.name("label").utf8Value(utf8, 0, length);
+        geometry(geometry);
+        json.name("category").value(category);
+        json.endObject();
+    }
+
+    @Override
+    public void visitFeatureCount(int count) throws IOException {
+        json.endArray();
+        json.name("features").beginArray();
+    }
+
+    @Override
+    public void visitFeature(int key, int category, int code, int geometry,
+                             int usageBitmask, int precedence, int attributesOverlaySize) throws IOException {
+        json.beginObject();
+        json.name("category").value(key);
+        json.name("code").value(code);
+        geometry(geometry);
+        json.name("usageBitmask").value(usageBitmask);
+        json.name("precedence").value(precedence);
+        json.name("attributesOverlaySize").value(attributesOverlaySize);
+        json.endObject();
+    }
+
+    @Override
+    public void visitAttributeCount(int count) throws IOException {
+        json.endArray();
+        json.name("attributes").beginArray();
+    }
+
+    @Override
+    public void visitAttribute(int key, int code, int dataType, int units, int editability) throws IOException {
+        json.beginObject();
+        json.name("key").value(key);
+        json.name("code").value(code);
+        json.name("dataType");
+        // 枚举常量按原始值顺序定义，下标即原始值
+        if (dataType >= 0 && dataType < DATA_TYPES.length) {
+            json.value(DATA_TYPES[dataType].name());
+        } else {
+            json.value(dataType);
+        }
+        json.name("units");
+        if (units >= 0 && units < UNITS.length) {
+            json.value(UNITS[units].name());
+        } else {
+            json.value(units);
+        }
+        json.name("editable").value(editability != 0);
+        json.endObject();
+    }
+
+    @Override
+    public void visitEnd() throws IOException {
+        json.endArray();
+        json.endObject();
+    }
+
+    private void beginRow(int row) throws IOException {
+        if (openRow != row) {
+            json.beginObject();
+            json.name("category").value(row);
+            json.name("attributes").beginArray();
+            openRow = row;
+        }
+    }
+
+    private void beginCell(int row, int code, AttributeDataType type, int offset) throws IOException {
+        beginRow(row);
+        json.beginObject();
+        json.name("code").value(code);
+        json.name("type").value(type.name());
+        json.name("offset").value(offset);
+    }
+
+    private void geometry(int geometry) throws IOException {
+        json.name("geometry");
+        if (geometry >= 0 && geometry < GEOMETRIES.length) {
+            json.value(GEOMETRIES[geometry].name());
+        } else {
+            json.value(geometry);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.onesaf.farm.io;
+
+import com.onesaf.farm.util.ByteBufferBinaryReader;
+import com.onesaf.farm.util.ChannelBinaryReader;
+import com.onesaf.farm.util.MappedBinaryReader;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * FARM数据来源
+ * <p>
+ * 统一文件、通道、输入流、内存字节、类路径资源和gzip压缩数据的读取方式。
+ * 所有来源都打开为 {@link ByteBufferBinaryReader}，字节序标记通过查看缓冲区判断，不需要回退读取位置。
+ */
+public abstract class FarmSource {
+    private final String description;
+
+    protected FarmSource(String description) {
+        this.description = description;
+    }
+
+    /**
+     * 打开读取器，读取位置位于数据开头，初始字节序为小端
+     */
+    public abstract ByteBufferBinaryReader open() throws IOException;
+
+    /**
+     * 来源描述，用于日志和错误信息
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    /**
+     * 本地文件，整体内存映射
+     */
+    public static FarmSource file(Path path) {
+        return new FarmSource(path.toString()) {
+            @Override
+            public ByteBufferBinaryReader open() throws IOException {
+                return MappedBinaryReader.open(path, ByteOrder.LITTLE_ENDIAN);
+            }
+        };
+    }
+
+    /**
+     * gzip压缩的本地文件，解压后分块读取
+     */
+    public static FarmSource gzip(Path path) {
+        return new FarmSource(path + " (gzip)") {
+            @Override
+            public ByteBufferBinaryReader open() throws IOException {
+                InputStream in = Files.newInputStream(path);
+                try {
+                    return streamReader(new GZIPInputStream(in, ChannelBinaryReader.DEFAULT_BLOCK_SIZE));
+                } catch (IOException | RuntimeException e) {
+                    in.close();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * gzip压缩的输入流，只能打开一次
+     */
+    public static FarmSource gzip(InputStream inputStream) {
+        return new FarmSource("gzip stream") {
+            @Override
+            public ByteBufferBinaryReader open() throws IOException {
+                return streamReader(new GZIPInputStream(inputStream, ChannelBinaryReader.DEFAULT_BLOCK_SIZE));
+            }
+        };
+    }
+
+    /**
+     * 可读通道，只能打开一次
+     */
+    public static FarmSource channel(ReadableByteChannel channel) {
+        return new FarmSource("channel") {
+            @Override
+            public ByteBufferBinaryReader open() {
+                return new ChannelBinaryReader(channel, ByteOrder.LITTLE_ENDIAN);
+            }
+        };
+    }
+
+    /**
+     * 输入流，只能打开一次
+     */
+    public static FarmSource inputStream(InputStream inputStream) {
+        return new FarmSource("input stream") {
+            @Override
+            public ByteBufferBinaryReader open() {
+                return streamReader(inputStream);
+            }
+        };
+    }
+
+    /**
+     * 内存中的字节数组，不复制
+     */
+    public static FarmSource bytes(byte[] bytes) {
+        return buffer(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 内存中的缓冲区，从其当前位置读取到limit，不修改原缓冲区的位置
+     */
+    public static FarmSource buffer(ByteBuffer buffer) {
+        return new FarmSource("buffer[" + buffer.remaining() + "]") {
+            @Override
+            public ByteBufferBinaryReader open() {
+                return new ByteBufferBinaryReader(buffer.slice(), ByteOrder.LITTLE_ENDIAN);
+            }
+        };
+    }
+
+    /**
+     * 类路径资源，例如打包在jar中的 {@code farm.dat}
+     */
+    public static FarmSource classpath(String resourceName) {
+        return new FarmSource("classpath:" + resourceName) {
+            @Override
+            public ByteBufferBinaryReader open() throws IOException {
+                ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                if (loader == null) {
+                    loader = FarmSource.class.getClassLoader();
+                }
+                InputStream in = loader.getResourceAsStream(resourceName);
+                if (in == null) {
+                    throw new FileNotFoundException("找不到类路径资源: " + resourceName);
+                }
+                return streamReader(in);
+            }
+        };
+    }
+
+    private static ByteBufferBinaryReader streamReader(InputStream inputStream) {
+        return new ChannelBinaryReader(inputStream, ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,254 @@
+package com.onesaf.farm.io;
+
+import com.onesaf.farm.table.FarmTableDecoder;
+import com.onesaf.farm.util.ByteBufferBinaryReader;
+import com.onesaf.farm.util.ParseTracer;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+/**
+ * farm.dat的流式解析器
+ * <p>
+ * 顺序读取文件，把内容以 {@link FarmVisitor} 回调的形式交给调用方，不构建 {@code Feature}、{@code DataType} 等对象。
+ * 单元格由 {@link FarmTableDecoder} 解码，与对象模型加载器使用同一个解码器。
+ * 标签字节数组和枚举有效值数组在解析过程中复用，解析本身只在数组需要扩容时分配。
+ * <p>
+ * 可以用 {@link #accept(FarmVisitor)} 一次解析全部内容，也可以按文件顺序分段调用各个 {@code read} 方法，
+ * 例如用 {@link #scanTableRows()} 跳过FARM表而只记录行位置。实例不是线程安全的。
+ * <p>
+ * 设置了 {@link ParseTracer} 时，进入各段以及每个单元格、标签和特征都记录一个带字节位置的事件。
+ */
+public final class FarmStreamReader {
+    // 字符串长度上限，防止异常长度导致内存问题
+    private static final int MAX_STRING_LENGTH = 10000;
+
+    private final ByteBufferBinaryReader reader;
+
+    private FarmTableDecoder decoder;
+    private int rows;
+    private byte[] label = new byte[64];
+    private ParseTracer tracer;
+
+    /**
+     * @param reader 读取位置位于数据开头
+     */
+    public FarmStreamReader(ByteBufferBinaryReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 打开数据来源并解析全部内容
+     */
+    public static void accept(FarmSource source, FarmVisitor visitor) throws IOException {
+        try (ByteBufferBinaryReader reader = source.open()) {
+            new FarmStreamReader(reader).accept(visitor);
+        }
+    }
+
+    public ByteBufferBinaryReader getReader() {
+        return reader;
+    }
+
+    /**
+     * 设置记录解析事件的跟踪器，为null时不记录；应在读取FARM表维度之前设置
+     */
+    public void setTracer(ParseTracer tracer) {
+        this.tracer = tracer;
+        if (decoder != null) {
+            decoder.setTracer(tracer);
+        }
+    }
+
+    public ParseTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * 解析全部内容
+     */
+    public void accept(FarmVisitor visitor) throws IOException {
+        readHeader(visitor);
+        readTableDimensions(visitor);
+        readTableCells(visitor);
+        readLabels(visitor);
+        readFeatures(visitor);
+        readAttributes(visitor);
+        visitor.visitEnd();
+    }
+
+    /**
+     * 读取字节序标记并切换读取器的字节序，然后读取版本
+     */
+    public void readHeader(FarmVisitor visitor) throws IOException {
+        section(ParseTracer.SECTION_HEADER);
+        int littleEndian = reader.peekUInt16();
+        ByteOrder byteOrder;
+        if (littleEndian == 1) {
+            byteOrder = ByteOrder.LITTLE_ENDIAN;
+        } else if (littleEndian == 0) {
+            byteOrder = ByteOrder.BIG_ENDIAN;
+        } else {
+            throw new IOException("FARM文件的字节序标记无效: " + littleEndian);
+        }
+        if (reader.getByteOrder() != byteOrder) {
+            reader.setByteOrder(byteOrder);
+        }
+        reader.skip(2);
+
+        int versionNumber = reader.readUInt16();
+        int formatNumber = reader.readUInt16();
+        int updateNumber = reader.readUInt16();
+        visitor.visitVersion(versionNumber, formatNumber, updateNumber);
+    }
+
+    /**
+     * 读取FARM表的维度和属性代码列
+     *
+     * @return 属性代码列
+     */
+    public int[] readTableDimensions(FarmVisitor visitor) throws IOException {
+        section(ParseTracer.SECTION_TABLE);
+        rows = reader.readUInt16();
+        int columns = reader.readUInt16();
+        int[] codes = new int[columns];
+        for (int column = 0; column < columns; column++) {
+            codes[column] = reader.readUInt16();
+        }
+        decoder = new FarmTableDecoder(codes);
+        decoder.setTracer(tracer);
+        visitor.visitTableDimensions(rows, codes);
+        return codes;
+    }
+
+    /**
+     * 逐行解码FARM表的单元格
+     */
+    public void readTableCells(FarmVisitor visitor) throws IOException {
+        FarmTableDecoder decoder = decoder();
+        for (int row = 0; row < rows; row++) {
+            decoder.decodeRow(reader, row, visitor);
+            visitor.visitRowEnd(row);
+        }
+    }
+
+    /**
+     * 不解码单元格，只扫描FARM表的行边界，完成后读取位置位于表之后
+     * <p>
+     * 需要驻留内存的读取器，见 {@link ByteBufferBinaryReader#toResident()}。
+     *
+     * @return 见 {@link FarmTableDecoder#scanRows}
+     */
+    public int[] scanTableRows() throws IOException {
+        int[] rowPositions = decoder().scanRows(reader.duplicateBuffer(), reader.position(), rows);
+        reader.position(rowPositions[rows]);
+        return rowPositions;
+    }
+
+    /**
+     * 读取特征标签和几何类型到特征类别的映射
+     */
+    public void readLabels(FarmVisitor visitor) throws IOException {
+        section(ParseTracer.SECTION_LABELS);
+        int count = reader.readUInt16();
+        visitor.visitLabelCount(count);
+        for (int i = 0; i < count; i++) {
+            long position = reader.bytesRead();
+            int length = readLabel();
+            int geometry = reader.readUInt16();
+            int category = reader.readUInt16();
+            if (tracer != null) {
+                tracer.record(ParseTracer.LABEL, position, i, length, geometry, category);
+            }
+            visitor.visitLabel(label, length, geometry, category);
+        }
+    }
+
+    /**
+     * 读取特征类别到特征的映射
+     */
+    public void readFeatures(FarmVisitor visitor) throws IOException {
+        section(ParseTracer.SECTION_FEATURES);
+        int count = reader.readUInt16();
+        visitor.visitFeatureCount(count);
+        for (int i = 0; i < count; i++) {
+            long position = reader.bytesRead();
+            // 顺序与C++代码中Feature::read相同：
+            // category, code, geometry, usage_bitmask, precedence, attributes_overlay_size
+            int key = reader.readUInt16();
+            int category = reader.readInt32();
+            int code = reader.readInt32();
+            int geometry = reader.readInt32();
+            int usageBitmask = reader.readInt32();
+            int precedence = reader.readInt32();
+            int attributesOverlaySize = reader.readInt32();
+            if (tracer != null) {
+                tracer.record(ParseTracer.FEATURE, position, key, code, geometry, attributesOverlaySize);
+            }
+            visitor.visitFeature(key, category, code, geometry, usageBitmask, precedence, attributesOverlaySize);
+        }
+    }
+
+    /**
+     * 读取属性代码到属性的映射；文件在特征映射之后结束时视为没有属性
+     * <p>
+     * 版本8的每个条目是UInt16键和四个Int32：属性代码、数据类型、单位、可编辑性，文件中不包含属性标签。
+     */
+    public void readAttributes(FarmVisitor visitor) throws IOException {
+        section(ParseTracer.SECTION_ATTRIBUTES);
+        if (!reader.hasRemaining()) {
+            visitor.visitAttributeCount(0);
+            return;
+        }
+        int count = reader.readUInt16();
+        visitor.visitAttributeCount(count);
+        for (int i = 0; i < count; i++) {
+            long position = reader.bytesRead();
+            int key = reader.readUInt16();
+            int code = reader.readInt32();
+            int dataType = reader.readInt32();
+            int units = reader.readInt32();
+            int editability = reader.readInt32();
+            if (tracer != null) {
+                tracer.record(ParseTracer.ATTRIBUTE, position, key, code, dataType, units);
+            }
+            visitor.visitAttribute(key, code, dataType, units, editability);
+        }
+    }
+
+    /**
+     * 读取字符串的UTF-8字节到复用的数组中，格式同 {@link ByteBufferBinaryReader#readString()}
+     *
+     * @return 字节数
+     */
+    private int readLabel() throws IOException {
+        int length = reader.readUInt16();
+        if (length > MAX_STRING_LENGTH) {
+            throw new IOException("字符串长度异常: " + length);
+        }
+        if (length > label.length) {
+            label = new byte[Math.max(length, label.length * 2)];
+        }
+        try {
+            reader.readBytes(label, 0, length);
+            // 奇数长度后跟一个填充字节
+            reader.skip(length & 1);
+        } catch (IOException e) {
+            throw new IOException("读取字符串时遇到文件结束", e);
+        }
+        return length;
+    }
+
+    private void section(int section) {
+        if (tracer != null) {
+            tracer.section(section, reader.bytesRead());
+        }
+    }
+
+    private FarmTableDecoder decoder() {
+        if (decoder == null) {
+            throw new IllegalStateException("尚未读取FARM表维度");
+        }
+        return decoder;
+    }
+}
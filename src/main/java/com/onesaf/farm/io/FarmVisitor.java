@@ -0,0 +1,88 @@
+package com.onesaf.farm.io;
+
+import com.onesaf.farm.table.CellVisitor;
+
+import java.io.IOException;
+
+/**
+ * farm.dat的流式解析回调
+ * <p>
+ * {@link FarmStreamReader} 按文件顺序回调：版本、FARM表维度、逐行的单元格（见 {@link CellVisitor}）和行结束、
+ * 特征标签映射的每个条目、每个特征、每个属性，最后是 {@link #visitEnd()}。
+ * 解析器不构建任何对象模型，回调参数都是基本类型或由解析器复用的数组，只在回调期间有效，需要保留时由调用方复制。
+ * 所有方法默认不做任何处理，调用方只需覆盖关心的回调；回调抛出的异常会中止解析。
+ */
+public interface FarmVisitor extends CellVisitor {
+    default void visitVersion(int versionNumber, int formatNumber, int updateNumber) throws IOException {
+    }
+
+    /**
+     * FARM表维度
+     *
+     * @param codes 各列的属性代码，列数为其长度
+     */
+    default void visitTableDimensions(int rows, int[] codes) throws IOException {
+    }
+
+    /**
+     * 一行的所有单元格都已回调
+     */
+    default void visitRowEnd(int row) throws IOException {
+    }
+
+    /**
+     * 特征标签和几何类型映射的条目数，在该映射的第一个条目之前回调
+     */
+    default void visitLabelCount(int count) throws IOException {
+    }
+
+    /**
+     * 特征标签和几何类型到特征类别的映射条目
+     *
+     * @param utf8     UTF-8编码的特征标签，前 {@code length} 个字节有效
+     * @param geometry 几何类型的原始值
+     */
+    default void visitLabel(byte[] utf8, int length, int geometry, int category) throws IOException {
+    }
+
+    /**
+     * 特征类别到特征的映射条目数，在该映射的第一个条目之前回调
+     */
+    default void visitFeatureCount(int count) throws IOException {
+    }
+
+    /**
+     * 特征类别到特征的映射条目
+     *
+     * @param key      映射的键
+     * @param category 特征中记录的特征类别
+     * @param geometry 几何类型的原始值
+     */
+    default void visitFeature(int key, int category, int code, int geometry,
+                              int usageBitmask, int precedence, int attributesOverlaySize) throws IOException {
+    }
+
+    /**
+     * 属性代码到属性的映射条目数，在该映射的第一个条目之前回调；文件中没有属性段时为0
+     */
+    default void visitAttributeCount(int count) throws IOException {
+    }
+
+    /**
+     * 属性代码到属性的映射条目
+     *
+     * @param key         映射的键
+     * @param code        属性中记录的属性代码
+     * @param dataType    数据类型的原始值
+     * @param units       单位的原始值
+     * @param editability 可编辑性，非0为可编辑
+     */
+    default void visitAttribute(int key, int code, int dataType, int units, int editability) throws IOException {
+    }
+
+    /**
+     * 解析完成
+     */
+    default void visitEnd() throws IOException {
+    }
+}
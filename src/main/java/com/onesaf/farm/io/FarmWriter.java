@@ -0,0 +1,303 @@
+package com.onesaf.farm.io;
+
+import com.onesaf.farm.FeatureAttributeMapping;
+import com.onesaf.farm.index.FeatureLabelIndex;
+import com.onesaf.farm.model.Attribute;
+import com.onesaf.farm.model.Feature;
+import com.onesaf.farm.model.FeatureLabelAndGeometry;
+import com.onesaf.farm.table.EnumDomain;
+import com.onesaf.farm.table.FarmTable;
+import com.onesaf.farm.util.BinaryWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把内存中的FARM数据写成farm.dat格式，与 {@link FarmStreamReader} 对应
+ * <p>
+ * 依次写出字节序标记、版本、FARM表、特征标签映射、特征映射和属性映射。FARM表按原来的列顺序逐行写出，
+ * 枚举单元格的有效值列表写出值域中的全部枚举代码（含默认值），重新读取后得到相同的值域。
+ * 标签映射按 {@link Map} 的遍历顺序写出，因此与原文件可能只有条目顺序不同。属性标签不属于文件格式，不写出。
+ */
+public final class FarmWriter {
+    /**
+     * 写出的文件版本
+     */
+    public static final int VERSION_NUMBER = 8;
+    public static final int FORMAT_NUMBER = 0;
+    public static final int UPDATE_NUMBER = 0;
+
+    private final BinaryWriter writer;
+
+    public FarmWriter(BinaryWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * 把已读取的映射写入文件
+     */
+    public static void write(FeatureAttributeMapping mapping, Path file, ByteOrder byteOrder) throws IOException {
+        try (BinaryWriter writer = new BinaryWriter(Files.newOutputStream(file), byteOrder)) {
+            new FarmWriter(writer).write(mapping);
+        }
+    }
+
+    /**
+     * 把已读取的映射写入输出流，完成后刷新但不关闭输出流
+     */
+    public static void write(FeatureAttributeMapping mapping, OutputStream out, ByteOrder byteOrder) throws IOException {
+        BinaryWriter writer = new BinaryWriter(out, byteOrder);
+        new FarmWriter(writer).write(mapping);
+        writer.flush();
+    }
+
+    public void write(FeatureAttributeMapping mapping) throws IOException {
+        if (!mapping.isInitialized()) {
+            throw new IllegalStateException("FARM数据尚未读取");
+        }
+        writeHeader();
+        writeTable(mapping.getFarmTable());
+        writeLabels(mapping.getLabelIndex());
+        writeFeatures(mapping.getFeatureCategoriesToFeatures());
+        writeAttributes(mapping.getAttributeCodesToAttributes());
+    }
+
+    /**
+     * 字节序标记和版本
+     */
+    public void writeHeader() throws IOException {
+        writer.writeUInt16(writer.getByteOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 0);
+        writer.writeUInt16(VERSION_NUMBER);
+        writer.writeUInt16(FORMAT_NUMBER);
+        writer.writeUInt16(UPDATE_NUMBER);
+    }
+
+    public void writeTable(FarmTable table) throws IOException {
+        int rows = table.getRowCount();
+        int[] codes = new int[table.getColumnCount()];
+        for (int column = 0; column < codes.length; column++) {
+            codes[column] = table.getColumnCode(column);
+        }
+        writeTableDimensions(rows, codes);
+
+        for (int row = 0; row < rows; row++) {
+            // 行内条目按属性代码升序，列不一定有序，逐列查找
+            for (int code : codes) {
+                int entry = table.find(row, code);
+                if (entry == FarmTable.NOT_FOUND) {
+                    writeEmptyCell();
+                } else {
+                    writeCell(table, entry);
+                }
+            }
+        }
+    }
+
+    private void writeCell(FarmTable table, int entry) throws IOException {
+        int offset = table.offset(entry);
+        int typeTag = table.typeTag(entry);
+        switch (typeTag) {
+            case 1: // int32
+                writeInt32Cell(offset, table.intDefault(entry), table.intMin(entry), table.intMax(entry));
+                break;
+            case 2: // float64
+                writeFloat64Cell(offset, table.floatDefault(entry), table.floatMin(entry), table.floatMax(entry));
+                break;
+            case 3: // string
+                writeStringCell(offset);
+                break;
+            case 4: // enumeration
+                EnumDomain domain = table.enumDomain(entry);
+                int[] validCodes = new int[domain.size()];
+                for (int i = 0; i < validCodes.length; i++) {
+                    validCodes[i] = domain.get(i);
+                }
+                writeEnumerationCell(offset, table.enumAttributeCode(entry), table.intDefault(entry),
+                        validCodes, validCodes.length);
+                break;
+            case 5: // boolean
+                writeBooleanCell(offset, table.intDefault(entry) != 0);
+                break;
+            case 6: // uuid
+                writeUUIDCell(offset);
+                break;
+            default:
+                throw new IOException("不支持写出的数据类型: " + typeTag);
+        }
+    }
+
+    /**
+     * FARM表的维度和属性代码列，之后应按行写出 {@code rows * codes.length} 个单元格
+     */
+    public void writeTableDimensions(int rows, int[] codes) throws IOException {
+        writer.writeUInt16(rows);
+        writer.writeUInt16(codes.length);
+        for (int code : codes) {
+            writer.writeUInt16(code);
+        }
+    }
+
+    /**
+     * 特征不包含该属性（no_data_type）
+     */
+    public void writeEmptyCell() throws IOException {
+        writer.writeUInt16(0);
+    }
+
+    public void writeInt32Cell(int offset, int defaultValue, int minValue, int maxValue) throws IOException {
+        writer.writeUInt16(1);
+        writer.writeInt32(offset);
+        writer.writeInt32(defaultValue);
+        writer.writeInt32(minValue);
+        writer.writeInt32(maxValue);
+    }
+
+    public void writeFloat64Cell(int offset, double defaultValue, double minValue, double maxValue) throws IOException {
+        writer.writeUInt16(2);
+        writer.writeInt32(offset);
+        writer.writeFloat64(defaultValue);
+        writer.writeFloat64(minValue);
+        writer.writeFloat64(maxValue);
+    }
+
+    public void writeStringCell(int offset) throws IOException {
+        writer.writeUInt16(3);
+        writer.writeInt32(offset);
+    }
+
+    /**
+     * @param validCodes 有效的枚举代码，前 {@code validCount} 项有效，每项与 {@code eaCode} 成对写出
+     */
+    public void writeEnumerationCell(int offset, int eaCode, int defaultCode, int[] validCodes, int validCount)
+            throws IOException {
+        writer.writeUInt16(4);
+        writer.writeInt32(offset);
+        writer.writeInt32(eaCode);
+        writer.writeInt32(defaultCode);
+        writer.writeInt32(validCount);
+        for (int i = 0; i < validCount; i++) {
+            writer.writeInt32(eaCode);
+            writer.writeInt32(validCodes[i]);
+        }
+    }
+
+    public void writeBooleanCell(int offset, boolean defaultValue) throws IOException {
+        writer.writeUInt16(5);
+        writer.writeInt32(offset);
+        writer.writeInt32(defaultValue ? 1 : 0);
+    }
+
+    public void writeUUIDCell(int offset) throws IOException {
+        writer.writeUInt16(6);
+        writer.writeInt32(offset);
+    }
+
+    public void writeLabels(Map<FeatureLabelAndGeometry, Integer> labels) throws IOException {
+        writeLabelCount(labels.size());
+        for (Map.Entry<FeatureLabelAndGeometry, Integer> entry : labels.entrySet()) {
+            writeLabel(entry.getKey().getLabel(), entry.getKey().getGeometry().getValue(), entry.getValue());
+        }
+    }
+
+    /**
+     * 按标签索引的条目顺序写出，从文件读取的索引保持文件中的顺序
+     */
+    public void writeLabels(FeatureLabelIndex labels) throws IOException {
+        writeLabelCount(labels.size());
+        for (int entry = 0; entry < labels.size(); entry++) {
+            writeLabel(labels.getEntryLabel(entry), labels.getEntryGeometry(entry).getValue(),
+                    labels.getEntryCategory(entry));
+        }
+    }
+
+    /**
+     * 特征标签映射的条目数，之后应写出同样数量的 {@link #writeLabel}
+     */
+    public void writeLabelCount(int count) throws IOException {
+        writer.writeUInt16(count);
+    }
+
+    public void writeLabel(String label, int geometry, int category) throws IOException {
+        writer.writeString(label);
+        writer.writeUInt16(geometry);
+        writer.writeUInt16(category);
+    }
+
+    /**
+     * @param features 下标为特征类别，不存在的类别为null
+     */
+    public void writeFeatures(List<Feature> features) throws IOException {
+        int count = 0;
+        for (Feature feature : features) {
+            if (feature != null) {
+                count++;
+            }
+        }
+        writeFeatureCount(count);
+        for (int key = 0; key < features.size(); key++) {
+            Feature feature = features.get(key);
+            if (feature != null) {
+                writeFeature(key, feature.getCategory(), feature.getCode(), feature.getGeometry().getValue(),
+                        feature.getUsageBitmask(), feature.getPrecedence(), feature.getAttributesOverlaySize());
+            }
+        }
+    }
+
+    /**
+     * 特征映射的条目数，之后应写出同样数量的 {@link #writeFeature}
+     */
+    public void writeFeatureCount(int count) throws IOException {
+        writer.writeUInt16(count);
+    }
+
+    public void writeFeature(int key, int category, int code, int geometry,
+                             int usageBitmask, int precedence, int attributesOverlaySize) throws IOException {
+        writer.writeUInt16(key);
+        writer.writeInt32(category);
+        writer.writeInt32(code);
+        writer.writeInt32(geometry);
+        writer.writeInt32(usageBitmask);
+        writer.writeInt32(precedence);
+        writer.writeInt32(attributesOverlaySize);
+    }
+
+    /**
+     * @param attributes 下标为属性代码，不存在的代码为null
+     */
+    public void writeAttributes(List<Attribute> attributes) throws IOException {
+        int count = 0;
+        for (Attribute attribute : attributes) {
+            if (attribute != null) {
+                count++;
+            }
+        }
+        writeAttributeCount(count);
+        for (int key = 0; key < attributes.size(); key++) {
+            Attribute attribute = attributes.get(key);
+            if (attribute != null) {
+                writeAttribute(key, attribute.getCode(), attribute.getDataType().getValue(),
+                        attribute.getUnits().getValue(), attribute.isEditability());
+            }
+        }
+    }
+
+    /**
+     * 属性映射的条目数，之后应写出同样数量的 {@link #writeAttribute}
+     */
+    public void writeAttributeCount(int count) throws IOException {
+        writer.writeUInt16(count);
+    }
+
+    public void writeAttribute(int key, int code, int dataType, int units, boolean editability) throws IOException {
+        writer.writeUInt16(key);
+        writer.writeInt32(code);
+        writer.writeInt32(dataType);
+        writer.writeInt32(units);
+        writer.writeInt32(editability ? 1 : 0);
+    }
+}
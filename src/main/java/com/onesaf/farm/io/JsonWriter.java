@@ -0,0 +1,314 @@
+package com.onesaf.farm.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 流式JSON写入器
+ * <p>
+ * 直接把UTF-8字节写入一个复用的大缓冲区，缓冲区满时整块写出到输出流，不构建中间的树或字符串。
+ * 整数逐位写入；浮点数通过复用的 {@link StringBuilder} 格式化，NaN和无穷大写为null。
+ * 逗号由写入器根据嵌套层次自动插入，调用方只需按顺序调用 {@code begin/end/name/value}。
+ * 写入器不检查调用顺序是否构成合法的JSON，也不是线程安全的。
+ */
+public final class JsonWriter implements Closeable, Flushable {
+    /**
+     * 默认缓冲区大小
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    // 最大嵌套深度
+    private static final int MAX_DEPTH = 64;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+
+    // 各嵌套层是否已写入元素，用于决定是否需要逗号
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth;
+
+    // 刚写完属性名，下一个值不需要逗号
+    private boolean afterName;
+
+    private final StringBuilder number = new StringBuilder(32);
+
+    public JsonWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonWriter(OutputStream out, int bufferSize) {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("缓冲区过小: " + bufferSize);
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * 写入属性名，名称只能包含不需要转义的ASCII字符
+     */
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        int length = name.length();
+        ensure(length + 3);
+        buffer[count++] = '"';
+        for (int i = 0; i < length; i++) {
+            buffer[count++] = (byte) name.charAt(i);
+        }
+        buffer[count++] = '"';
+        buffer[count++] = ':';
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        ensure(20);
+        if (value == Long.MIN_VALUE) {
+            // 取反会溢出，按无符号数写出各位
+            buffer[count++] = '-';
+            count = writeDigits(Long.toUnsignedString(value), count);
+            return this;
+        }
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int end = count + digitCount(value);
+        for (int i = end - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        separator();
+        number.setLength(0);
+        number.append(value);
+        ensure(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            buffer[count++] = (byte) number.charAt(i);
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        return raw(value ? TRUE : FALSE);
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        return raw(NULL);
+    }
+
+    /**
+     * 写入字符串值
+     */
+    public JsonWriter value(CharSequence value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separator();
+        ensure(1);
+        buffer[count++] = '"';
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAscii(c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符
+                writeUnicodeEscape(c);
+            } else {
+                ensure(3);
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ensure(1);
+        buffer[count++] = '"';
+        return this;
+    }
+
+    /**
+     * 写入已是UTF-8编码的字符串值，只转义引号、反斜杠和控制字符，其余字节原样写出
+     */
+    public JsonWriter utf8Value(byte[] utf8, int offset, int length) throws IOException {
+        separator();
+        ensure(1);
+        buffer[count++] = '"';
+        for (int i = offset, end = offset + length; i < end; i++) {
+            byte b = utf8[i];
+            if (b < 0) {
+                ensure(1);
+                buffer[count++] = b;
+            } else {
+                writeAscii((char) b);
+            }
+        }
+        ensure(1);
+        buffer[count++] = '"';
+        return this;
+    }
+
+    /**
+     * 把缓冲区中的内容写出到输出流
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+        out.flush();
+    }
+
+    /**
+     * 写出剩余内容并关闭输出流
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separator();
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON嵌套层次超过" + MAX_DEPTH);
+        }
+        hasElements[depth++] = false;
+        ensure(1);
+        buffer[count++] = (byte) bracket;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("没有未结束的JSON对象或数组");
+        }
+        depth--;
+        afterName = false;
+        ensure(1);
+        buffer[count++] = (byte) bracket;
+        return this;
+    }
+
+    /**
+     * 在同一层的第二个及之后的元素前写入逗号
+     */
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                ensure(1);
+                buffer[count++] = ',';
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    private void writeAscii(char c) throws IOException {
+        if (c == '"' || c == '\\') {
+            ensure(2);
+            buffer[count++] = '\\';
+            buffer[count++] = (byte) c;
+        } else if (c < 0x20) {
+            writeUnicodeEscape(c);
+        } else {
+            ensure(1);
+            buffer[count++] = (byte) c;
+        }
+    }
+
+    private void writeUnicodeEscape(char c) throws IOException {
+        ensure(6);
+        buffer[count++] = '\\';
+        buffer[count++] = 'u';
+        buffer[count++] = HEX[(c >> 12) & 0xF];
+        buffer[count++] = HEX[(c >> 8) & 0xF];
+        buffer[count++] = HEX[(c >> 4) & 0xF];
+        buffer[count++] = HEX[c & 0xF];
+    }
+
+    private JsonWriter raw(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+        return this;
+    }
+
+    private int writeDigits(String digits, int position) {
+        for (int i = 0; i < digits.length(); i++) {
+            buffer[position++] = (byte) digits.charAt(i);
+        }
+        return position;
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * 确保缓冲区还能容纳指定字节数，不够时先写出已有内容
+     */
+    private void ensure(int bytes) throws IOException {
+        if (count + bytes > buffer.length) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -1,21 +1,25 @@
 package com.onesaf.farm.model;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 import java.util.UUID;
 
 /**
  * 代表FARM中的Attribute类
+ * <p>
+ * 属性不可变，快照和索引直接返回共享的实例。
  */
-@Data
-@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
 public class Attribute {
-    private String label;              // 属性标签
-    private int code;                  // 属性代码
-    private AttributeDataType dataType; // 数据类型
-    private AttributeUnits units;      // 单位
-    private boolean editability;       // 是否可编辑
+    private final String label;              // 属性标签
+    private final int code;                  // 属性代码
+    private final AttributeDataType dataType; // 数据类型
+    private final AttributeUnits units;      // 单位
+    private final boolean editability;       // 是否可编辑
 
     public Attribute(String label, int code, AttributeDataType dataType, AttributeUnits units, boolean editability) {
         this.label = label;
@@ -1,18 +1,22 @@
 package com.onesaf.farm.model;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * 代表FARM中的Enumerant类
+ * <p>
+ * 枚举值不可变，可安全地放入共享的有效值集合。
  */
-@Data
-@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
 public class Enumerant {
-    private String eaLabel;    // 属性标签
-    private String eeLabel;    // 枚举标签
-    private int eaCode;        // 属性代码
-    private int eeCode;        // 枚举代码
+    private final String eaLabel;    // 属性标签
+    private final String eeLabel;    // 枚举标签
+    private final int eaCode;        // 属性代码
+    private final int eeCode;        // 枚举代码
 
     public Enumerant(String eaLabel, String eeLabel, int eaCode, int eeCode) {
         this.eaLabel = eaLabel;
@@ -20,8 +24,4 @@ public class Enumerant {
         this.eaCode = eaCode;
         this.eeCode = eeCode;
     }
-
-
-
-
 }
\ No newline at end of file
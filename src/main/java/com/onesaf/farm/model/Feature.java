@@ -1,26 +1,59 @@
 package com.onesaf.farm.model;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.function.IntFunction;
 
 /**
  * 代表FARM中的Feature类
+ * <p>
+ * 特征不可变，快照和索引直接返回共享的实例。
+ * 标签可以直接给出，也可以只记录标签编号，在首次调用 {@link #getLabel()} 时由标签来源（例如标签区）解码。
  */
-@Data
-@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
 public class Feature {
-    private int category;                // 特征类别
-    private String label;                // 特征标签
-    private int code;                    // 特征代码
-    private FeatureGeometry geometry;    // 几何类型
-    private int usageBitmask;           // 使用位掩码
-    private int precedence;             // 优先级
-    private int attributesOverlaySize;  // 属性覆盖大小
+    private final int category;                // 特征类别
+    private final String label;                // 特征标签，按编号取标签时为null
+    private final int code;                    // 特征代码
+    private final FeatureGeometry geometry;    // 几何类型
+    private final int usageBitmask;           // 使用位掩码
+    private final int precedence;             // 优先级
+    private final int attributesOverlaySize;  // 属性覆盖大小
+
+    // 按编号取标签时的标签来源和标签编号
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final IntFunction<String> labelSource;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final int labelId;
 
     public Feature(int category, String label, int code, FeatureGeometry geometry,
                    int usageBitmask, int precedence, int attributesOverlaySize) {
+        this(category, label, null, -1, code, geometry, usageBitmask, precedence, attributesOverlaySize);
+    }
+
+    /**
+     * 标签在首次请求时由 {@code labelSource.apply(labelId)} 得到
+     */
+    public Feature(int category, IntFunction<String> labelSource, int labelId, int code, FeatureGeometry geometry,
+                   int usageBitmask, int precedence, int attributesOverlaySize) {
+        this(category, null, labelSource, labelId, code, geometry, usageBitmask, precedence, attributesOverlaySize);
+    }
+
+    private Feature(int category, String label, IntFunction<String> labelSource, int labelId, int code,
+                    FeatureGeometry geometry, int usageBitmask, int precedence, int attributesOverlaySize) {
         this.category = category;
         this.label = label;
+        this.labelSource = labelSource;
+        this.labelId = labelId;
         this.code = code;
         this.geometry = geometry;
         this.usageBitmask = usageBitmask;
@@ -28,7 +61,11 @@ public class Feature {
         this.attributesOverlaySize = attributesOverlaySize;
     }
 
+    public String getLabel() {
+        return labelSource != null ? labelSource.apply(labelId) : label;
+    }
+
     public boolean isValid() {
         return code != -999 && geometry != FeatureGeometry.NULL;
     }
-}
\ No newline at end of file
+}
@@ -26,38 +26,46 @@ public class UsageBitmask {
     public static final int PROTECTS_VEH = 0x0080000;
     public static final int BODY_OF_WATER = 0x0100000;
 
-    // 将位掩码转换为可读字符串
-    public static String toString(int bitmask) {
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
+    /**
+     * 已定义的标志数，标志 {@code i} 的值为 {@code 1 << i}
+     */
+    public static final int FLAG_COUNT = 21;
 
-        if ((bitmask & AVENUE) != 0) {
-            sb.append("AVENUE");
-            first = false;
-        }
-        if ((bitmask & APERTURE) != 0) {
-            if (!first) sb.append(", ");
-            sb.append("APERTURE");
-            first = false;
-        }
-        // 添加其他位掩码检查...
-        if ((bitmask & BUILDING) != 0) {
-            if (!first) sb.append(", ");
-            sb.append("BUILDING");
-            first = false;
+    /**
+     * 所有已定义标志的并集
+     */
+    public static final int ALL = (1 << FLAG_COUNT) - 1;
+
+    // 按位序排列的标志名称
+    private static final String[] NAMES = {
+            "AVENUE", "APERTURE", "BUILDING", "AGRICULTURE_FARM", "FOREST", "FURNITURE",
+            "RAISED_COMBAT_POS", "DUG_IN_COMBAT_POS", "LANE", "MULTI_BLDG", "LF_SML_VEH_OBSTACLE",
+            "VEH_OBSTACLE", "AIR_VEH_OBSTACLE", "URBAN", "NBC", "BLOCKS_L_SML_VEH_LOS",
+            "BLOCKS_VEH_LOS", "BLOCKS_LOS", "PROTECTS_L_SML_VEH", "PROTECTS_VEH", "BODY_OF_WATER"
+    };
+
+    /**
+     * 第 {@code bit} 位标志的名称
+     */
+    public static String name(int bit) {
+        if (bit < 0 || bit >= FLAG_COUNT) {
+            throw new IllegalArgumentException("无效的使用位掩码位序: " + bit);
         }
-        if ((bitmask & AGRICULTURE_FARM) != 0) {
-            if (!first) sb.append(", ");
-            sb.append("AGRICULTURE_FARM");
-            first = false;
+        return NAMES[bit];
+    }
+
+    // 将位掩码转换为可读字符串，未定义的位以十六进制附在末尾
+    public static String toString(int bitmask) {
+        StringBuilder sb = new StringBuilder();
+        for (int bits = bitmask & ALL; bits != 0; bits &= bits - 1) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(NAMES[Integer.numberOfTrailingZeros(bits)]);
         }
-        if ((bitmask & FOREST) != 0) {
-            if (!first) sb.append(", ");
-            sb.append("FOREST");
-            first = false;
+        int unknown = bitmask & ~ALL;
+        if (unknown != 0) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append("0x").append(Integer.toHexString(unknown));
         }
-        // 继续添加所有其他位掩码...
-
         return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,17 @@
 package com.onesaf.farm.model.datatype;
 
-import lombok.Data;
 import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * 表示BooleanDataType类
  */
-@Data
+@Getter
+@ToString
 @EqualsAndHashCode(callSuper = true)
-@NoArgsConstructor
 public class BooleanDataType extends DataType {
-    private boolean defaultValue;
+    private final boolean defaultValue;
 
     public BooleanDataType(int offset, boolean defaultValue) {
         super(offset);
@@ -1,15 +1,19 @@
 package com.onesaf.farm.model.datatype;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * FARM中DataType类的基类
+ * <p>
+ * 数据类型实例不可变，内容相同的实例在FARM表中共享。
  */
-@Data
-@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
 public class DataType {
-    private int offset; // 属性在特征覆盖中的偏移量
+    private final int offset; // 属性在特征覆盖中的偏移量
 
     public DataType(int offset) {
         this.offset = offset;
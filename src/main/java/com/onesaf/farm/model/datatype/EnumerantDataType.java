@@ -1,27 +1,29 @@
 package com.onesaf.farm.model.datatype;
 
 import com.onesaf.farm.model.Enumerant;
-import lombok.Data;
 import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 
 /**
  * 表示EnumerantDataType类
+ * <p>
+ * 有效枚举集合只读，可在多个数据类型实例之间共享。
  */
-@Data
+@Getter
+@ToString
 @EqualsAndHashCode(callSuper = true)
-@NoArgsConstructor
 public class EnumerantDataType extends DataType {
-    private Enumerant defaultEnum;
-    private Set<Enumerant> validEnums = new HashSet<>();
+    private final Enumerant defaultEnum;
+    private final Set<Enumerant> validEnums;
 
     public EnumerantDataType(int offset, Enumerant defaultEnum, Set<Enumerant> validEnums) {
         super(offset);
         this.defaultEnum = defaultEnum;
-        this.validEnums = validEnums;
+        this.validEnums = Collections.unmodifiableSet(validEnums);
 
         if (!validEnums.contains(defaultEnum)) {
             throw new IllegalArgumentException("Default enum must be in valid enums set");
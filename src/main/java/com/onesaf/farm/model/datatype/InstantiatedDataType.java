@@ -1,19 +1,19 @@
 package com.onesaf.farm.model.datatype;
 
-import lombok.Data;
 import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * 表示InstantiatedDataType&lt;T&gt;，用于整型和浮点型属性
  */
-@Data
+@Getter
+@ToString
 @EqualsAndHashCode(callSuper = true)
-@NoArgsConstructor
 public class InstantiatedDataType<T extends Number> extends DataType {
-    private T defaultValue;
-    private T minValue;
-    private T maxValue;
+    private final T defaultValue;
+    private final T minValue;
+    private final T maxValue;
 
     public InstantiatedDataType(int offset, T defaultValue, T minValue, T maxValue) {
         super(offset);
@@ -1,15 +1,13 @@
 package com.onesaf.farm.model.datatype;
 
-import lombok.Data;
 import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * 表示StringDataType类
  */
-@Data
+@ToString
 @EqualsAndHashCode(callSuper = true)
-@NoArgsConstructor
 public class StringDataType extends DataType {
     public StringDataType(int offset) {
         super(offset);
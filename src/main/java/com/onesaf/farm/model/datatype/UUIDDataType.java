@@ -1,15 +1,13 @@
 package com.onesaf.farm.model.datatype;
 
-import lombok.Data;
 import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * 表示UUIDDataType类
  */
-@Data
+@ToString
 @EqualsAndHashCode(callSuper = true)
-@NoArgsConstructor
 public class UUIDDataType extends DataType {
     public UUIDDataType(int offset) {
         super(offset);
@@ -0,0 +1,55 @@
+package com.onesaf.farm.overlay;
+
+import com.onesaf.farm.model.Feature;
+import com.onesaf.farm.table.FarmTable;
+
+import java.util.List;
+
+/**
+ * 所有特征类别的属性覆盖布局
+ * <p>
+ * 加载时为每个存在的特征类别编译一次 {@link OverlayLayout}，之后按类别直接取用。
+ * 实例不可变，可在多个线程间共享。
+ */
+public final class OverlayCodec {
+    public static final OverlayCodec EMPTY = new OverlayCodec(new OverlayLayout[0]);
+
+    private final OverlayLayout[] layouts;
+
+    private OverlayCodec(OverlayLayout[] layouts) {
+        this.layouts = layouts;
+    }
+
+    /**
+     * 编译全部特征类别的布局
+     *
+     * @param features 下标为特征类别，不存在的类别为null
+     * @throws IllegalStateException 某个属性超出所属特征的覆盖范围
+     */
+    public static OverlayCodec compile(FarmTable table, List<Feature> features) {
+        OverlayLayout[] layouts = new OverlayLayout[features.size()];
+        for (int category = 0; category < layouts.length; category++) {
+            Feature feature = features.get(category);
+            if (feature != null) {
+                layouts[category] = OverlayLayout.compile(table, category, feature.getAttributesOverlaySize());
+            }
+        }
+        return new OverlayCodec(layouts);
+    }
+
+    /**
+     * 特征类别的布局
+     *
+     * @return 布局，类别不存在时返回null
+     */
+    public OverlayLayout layout(int category) {
+        return category >= 0 && category < layouts.length ? layouts[category] : null;
+    }
+
+    /**
+     * 特征类别上限（不含）
+     */
+    public int getCategoryLimit() {
+        return layouts.length;
+    }
+}
@@ -0,0 +1,262 @@
+package com.onesaf.farm.overlay;
+
+import com.onesaf.farm.table.FarmTable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * 一个特征类别的属性覆盖（overlay）布局
+ * <p>
+ * 覆盖是特征实例的属性值按 {@code DataType.offset} 紧凑排列的字节块，长度为 {@code Feature.attributesOverlaySize}。
+ * 布局由该类别实际包含的属性编译一次，之后按槽位（slot）直接读写缓冲区中的值，不装箱、不分配对象。
+ * 槽位按属性代码升序编号，可由 {@link #slot(int)} 得到。
+ * <p>
+ * 各类型在覆盖中占用的字节数与FARM文件一致：
+ * <ul>
+ * <li>int32、boolean：4字节，boolean以int32的0/1存储</li>
+ * <li>float64：8字节</li>
+ * <li>string：8字节的字符串引用</li>
+ * <li>enumeration：8字节，依次为枚举所属属性代码（eaCode）和枚举代码（eeCode），与文件中的Enumerant相同</li>
+ * <li>uuid：16字节，按网络字节序存储，与缓冲区字节序无关</li>
+ * </ul>
+ * 多字节数值按缓冲区的字节序读写；{@code base} 是实例在缓冲区中的起始位置，便于在一个缓冲区中连续存放多个实例。
+ * 实例不可变，可在多个线程间共享。
+ */
+public final class OverlayLayout {
+    /**
+     * 槽位不存在
+     */
+    public static final int NO_SLOT = -1;
+
+    // 按数据类型标记索引的字节数
+    private static final int[] SLOT_BYTES = {0, 4, 8, 8, 8, 4, 16};
+
+    private static final int INT32 = 1;
+    private static final int FLOAT64 = 2;
+    private static final int STRING = 3;
+    private static final int ENUMERATION = 4;
+    private static final int BOOLEAN = 5;
+    private static final int UUID_TYPE = 6;
+
+    private final FarmTable table;
+    private final int category;
+    private final int size;
+
+    // 按属性代码升序排列的槽位
+    private final int[] codes;
+    private final int[] typeTags;
+    private final int[] offsets;
+    private final int[] entries;
+
+    private OverlayLayout(FarmTable table, int category, int size,
+                          int[] codes, int[] typeTags, int[] offsets, int[] entries) {
+        this.table = table;
+        this.category = category;
+        this.size = size;
+        this.codes = codes;
+        this.typeTags = typeTags;
+        this.offsets = offsets;
+        this.entries = entries;
+    }
+
+    /**
+     * 编译一个特征类别的布局
+     *
+     * @param overlaySize 特征的 {@code attributesOverlaySize}
+     * @throws IllegalStateException 某个属性超出覆盖范围
+     */
+    public static OverlayLayout compile(FarmTable table, int category, int overlaySize) {
+        int from = category < table.getRowCount() ? table.rowStart(category) : 0;
+        int to = category < table.getRowCount() ? table.rowEnd(category) : 0;
+        int count = to - from;
+
+        int[] codes = new int[count];
+        int[] typeTags = new int[count];
+        int[] offsets = new int[count];
+        int[] entries = new int[count];
+        for (int slot = 0; slot < count; slot++) {
+            int entry = from + slot;
+            int typeTag = table.typeTag(entry);
+            int offset = table.offset(entry);
+            if (typeTag <= 0 || typeTag >= SLOT_BYTES.length) {
+                throw new IllegalStateException("特征类别" + category + "的属性" + table.code(entry) + "数据类型无效: " + typeTag);
+            }
+            if (offset < 0 || offset + SLOT_BYTES[typeTag] > overlaySize) {
+                throw new IllegalStateException("特征类别" + category + "的属性" + table.code(entry)
+                        + "超出覆盖范围: 偏移量" + offset + ", 覆盖大小" + overlaySize);
+            }
+            codes[slot] = table.code(entry);
+            typeTags[slot] = typeTag;
+            offsets[slot] = offset;
+            entries[slot] = entry;
+        }
+        return new OverlayLayout(table, category, overlaySize, codes, typeTags, offsets, entries);
+    }
+
+    public int getCategory() {
+        return category;
+    }
+
+    /**
+     * 覆盖的字节数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 槽位数，即该类别包含的属性数
+     */
+    public int getSlotCount() {
+        return codes.length;
+    }
+
+    /**
+     * 属性代码对应的槽位
+     *
+     * @return 槽位，类别不包含该属性时返回 {@link #NO_SLOT}
+     */
+    public int slot(int attributeCode) {
+        int slot = Arrays.binarySearch(codes, attributeCode);
+        return slot >= 0 ? slot : NO_SLOT;
+    }
+
+    public int code(int slot) {
+        return codes[slot];
+    }
+
+    /**
+     * 槽位的数据类型标记，取值同 {@link com.onesaf.farm.model.AttributeDataType#getValue()}
+     */
+    public int typeTag(int slot) {
+        return typeTags[slot];
+    }
+
+    /**
+     * 槽位相对于实例起始位置的偏移量
+     */
+    public int offset(int slot) {
+        return offsets[slot];
+    }
+
+    /**
+     * 槽位在FARM表中的条目，用于查询默认值和取值范围
+     */
+    public int entry(int slot) {
+        return entries[slot];
+    }
+
+    FarmTable table() {
+        return table;
+    }
+
+    // int32
+
+    public int getInt32(ByteBuffer overlay, int base, int slot) {
+        return overlay.getInt(position(base, slot, INT32));
+    }
+
+    public void setInt32(ByteBuffer overlay, int base, int slot, int value) {
+        overlay.putInt(position(base, slot, INT32), value);
+    }
+
+    // float64
+
+    public double getFloat64(ByteBuffer overlay, int base, int slot) {
+        return overlay.getDouble(position(base, slot, FLOAT64));
+    }
+
+    public void setFloat64(ByteBuffer overlay, int base, int slot, double value) {
+        overlay.putDouble(position(base, slot, FLOAT64), value);
+    }
+
+    // boolean
+
+    public boolean getBoolean(ByteBuffer overlay, int base, int slot) {
+        return overlay.getInt(position(base, slot, BOOLEAN)) != 0;
+    }
+
+    public void setBoolean(ByteBuffer overlay, int base, int slot, boolean value) {
+        overlay.putInt(position(base, slot, BOOLEAN), value ? 1 : 0);
+    }
+
+    // enumeration
+
+    /**
+     * 枚举代码（eeCode）
+     */
+    public int getEnum(ByteBuffer overlay, int base, int slot) {
+        return overlay.getInt(position(base, slot, ENUMERATION) + 4);
+    }
+
+    /**
+     * 枚举所属属性代码（eaCode）
+     */
+    public int getEnumAttributeCode(ByteBuffer overlay, int base, int slot) {
+        return overlay.getInt(position(base, slot, ENUMERATION));
+    }
+
+    /**
+     * 写入枚举代码，同时写入该属性的eaCode
+     */
+    public void setEnum(ByteBuffer overlay, int base, int slot, int eeCode) {
+        int position = position(base, slot, ENUMERATION);
+        overlay.putInt(position, table.enumAttributeCode(entries[slot]));
+        overlay.putInt(position + 4, eeCode);
+    }
+
+    // string
+
+    /**
+     * 字符串引用，含义由覆盖的使用方（字符串表）决定
+     */
+    public long getStringRef(ByteBuffer overlay, int base, int slot) {
+        return overlay.getLong(position(base, slot, STRING));
+    }
+
+    public void setStringRef(ByteBuffer overlay, int base, int slot, long reference) {
+        overlay.putLong(position(base, slot, STRING), reference);
+    }
+
+    // uuid
+
+    public long getUUIDMostSignificantBits(ByteBuffer overlay, int base, int slot) {
+        return networkLong(overlay, position(base, slot, UUID_TYPE));
+    }
+
+    public long getUUIDLeastSignificantBits(ByteBuffer overlay, int base, int slot) {
+        return networkLong(overlay, position(base, slot, UUID_TYPE) + 8);
+    }
+
+    public UUID getUUID(ByteBuffer overlay, int base, int slot) {
+        int position = position(base, slot, UUID_TYPE);
+        return new UUID(networkLong(overlay, position), networkLong(overlay, position + 8));
+    }
+
+    public void setUUID(ByteBuffer overlay, int base, int slot, long mostSignificantBits, long leastSignificantBits) {
+        int position = position(base, slot, UUID_TYPE);
+        boolean swap = overlay.order() == ByteOrder.LITTLE_ENDIAN;
+        overlay.putLong(position, swap ? Long.reverseBytes(mostSignificantBits) : mostSignificantBits);
+        overlay.putLong(position + 8, swap ? Long.reverseBytes(leastSignificantBits) : leastSignificantBits);
+    }
+
+    public void setUUID(ByteBuffer overlay, int base, int slot, UUID value) {
+        setUUID(overlay, base, slot, value.getMostSignificantBits(), value.getLeastSignificantBits());
+    }
+
+    private static long networkLong(ByteBuffer overlay, int position) {
+        long value = overlay.getLong(position);
+        return overlay.order() == ByteOrder.LITTLE_ENDIAN ? Long.reverseBytes(value) : value;
+    }
+
+    private int position(int base, int slot, int typeTag) {
+        if (typeTags[slot] != typeTag) {
+            throw new IllegalArgumentException("特征类别" + category + "的属性" + codes[slot]
+                    + "数据类型为" + typeTags[slot] + "，不是" + typeTag);
+        }
+        return base + offsets[slot];
+    }
+}
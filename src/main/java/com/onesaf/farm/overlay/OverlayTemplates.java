@@ -0,0 +1,161 @@
+package com.onesaf.farm.overlay;
+
+import com.onesaf.farm.table.FarmTable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 各特征类别的默认属性覆盖模板
+ * <p>
+ * 加载时按 {@link OverlayLayout} 把每个类别所有属性的默认值写入一段与覆盖大小相同的字节，
+ * 全部模板连续存放在一个数组中。新建实例时只需一次批量拷贝，不再逐个属性取默认值。
+ * <p>
+ * 默认值：int32、float64取FARM表中的默认值，boolean取默认值的0/1，枚举写入eaCode和默认枚举代码，
+ * 字符串引用和UUID为0。模板按构建时指定的字节序编码，写入的目标缓冲区必须使用相同的字节序。
+ * 实例不可变，可在多个线程间共享。
+ */
+public final class OverlayTemplates {
+    private final ByteOrder byteOrder;
+    private final byte[] data;
+    private final int[] start;
+    private final int[] sizes;
+
+    private OverlayTemplates(ByteOrder byteOrder, byte[] data, int[] start, int[] sizes) {
+        this.byteOrder = byteOrder;
+        this.data = data;
+        this.start = start;
+        this.sizes = sizes;
+    }
+
+    /**
+     * 模板数组和下标数组的估算字节数
+     */
+    public long getEstimatedBytes() {
+        return data.length + (long) (start.length + sizes.length) * Integer.BYTES;
+    }
+
+    /**
+     * 为所有类别构建模板
+     *
+     * @param byteOrder 覆盖数据的字节序
+     */
+    public static OverlayTemplates build(OverlayCodec codec, ByteOrder byteOrder) {
+        int categories = codec.getCategoryLimit();
+        int[] start = new int[categories];
+        int[] sizes = new int[categories];
+        int total = 0;
+        for (int category = 0; category < categories; category++) {
+            OverlayLayout layout = codec.layout(category);
+            start[category] = total;
+            sizes[category] = layout != null ? layout.getSize() : -1;
+            total += Math.max(0, sizes[category]);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(total).order(byteOrder);
+        for (int category = 0; category < categories; category++) {
+            OverlayLayout layout = codec.layout(category);
+            if (layout != null) {
+                writeDefaults(layout, buffer, start[category]);
+            }
+        }
+        return new OverlayTemplates(byteOrder, buffer.array(), start, sizes);
+    }
+
+    private static void writeDefaults(OverlayLayout layout, ByteBuffer buffer, int base) {
+        FarmTable table = layout.table();
+        for (int slot = 0; slot < layout.getSlotCount(); slot++) {
+            int entry = layout.entry(slot);
+            switch (layout.typeTag(slot)) {
+                case 1: // int32
+                    layout.setInt32(buffer, base, slot, table.intDefault(entry));
+                    break;
+                case 2: // float64
+                    layout.setFloat64(buffer, base, slot, table.floatDefault(entry));
+                    break;
+                case 4: // enumeration
+                    layout.setEnum(buffer, base, slot, table.intDefault(entry));
+                    break;
+                case 5: // boolean
+                    layout.setBoolean(buffer, base, slot, table.intDefault(entry) != 0);
+                    break;
+                default:
+                    // 字符串引用和UUID默认为0
+                    break;
+            }
+        }
+    }
+
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    /**
+     * 类别是否有模板
+     */
+    public boolean hasTemplate(int category) {
+        return category >= 0 && category < sizes.length && sizes[category] >= 0;
+    }
+
+    /**
+     * 模板的字节数，即类别的覆盖大小
+     */
+    public int getSize(int category) {
+        checkCategory(category);
+        return sizes[category];
+    }
+
+    /**
+     * 把模板写入字节数组
+     */
+    public void stamp(int category, byte[] destination, int offset) {
+        checkCategory(category);
+        System.arraycopy(data, start[category], destination, offset, sizes[category]);
+    }
+
+    /**
+     * 把模板写入缓冲区的指定位置，不修改缓冲区的位置
+     *
+     * @throws IllegalArgumentException 缓冲区字节序与模板不同
+     */
+    public void stamp(int category, ByteBuffer destination, int position) {
+        checkCategory(category);
+        checkOrder(destination);
+        int size = sizes[category];
+        if (destination.hasArray()) {
+            if (destination.isReadOnly() || position < 0 || position + size > destination.limit()) {
+                throw new IndexOutOfBoundsException("无法在位置" + position + "写入" + size + "字节");
+            }
+            System.arraycopy(data, start[category], destination.array(), destination.arrayOffset() + position, size);
+        } else {
+            ByteBuffer view = destination.duplicate();
+            view.position(position);
+            view.put(data, start[category], size);
+        }
+    }
+
+    /**
+     * 连续写入多个实例的模板
+     *
+     * @param base   第一个实例的起始位置
+     * @param stride 相邻实例起始位置的间距
+     * @param count  实例数
+     */
+    public void stamp(int category, ByteBuffer destination, int base, int stride, int count) {
+        for (int i = 0; i < count; i++) {
+            stamp(category, destination, base + i * stride);
+        }
+    }
+
+    private void checkCategory(int category) {
+        if (!hasTemplate(category)) {
+            throw new IllegalArgumentException("特征类别" + category + "没有覆盖模板");
+        }
+    }
+
+    private void checkOrder(ByteBuffer destination) {
+        if (destination.order() != byteOrder) {
+            throw new IllegalArgumentException("缓冲区字节序" + destination.order() + "与模板字节序" + byteOrder + "不同");
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.onesaf.farm.overlay;
+
+import com.onesaf.farm.table.EnumDomain;
+import com.onesaf.farm.table.FarmTable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 按FARM约束批量校验一个特征类别的属性覆盖
+ * <p>
+ * 构造时把布局中的int32范围、float64范围和枚举值域分别整理成平行数组，校验时逐实例依次检查三组数组，
+ * 内层循环只有取值和比较：int32用一次无符号比较判断 {@code min <= v <= max}，float64的比较同时排除NaN，
+ * 枚举使用值域的位图。实例按下标区间在 {@link ForkJoinPool} 上递归拆分，各段的违规记录按顺序合并。
+ * <p>
+ * 缓冲区只做绝对位置读取，校验期间不修改缓冲区的位置，多个校验可以同时读取同一个缓冲区。
+ * 实例不可变，可在多个线程间共享。
+ */
+public final class OverlayValidator {
+    /**
+     * 默认保留的最多违规记录数
+     */
+    public static final int DEFAULT_MAX_VIOLATIONS = 1 << 20;
+
+    // 每个子任务至少处理的实例数
+    private static final int MIN_SPLIT_INSTANCES = 4096;
+
+    private static final byte INT_RANGE = (byte) ViolationReport.Kind.INT_RANGE.ordinal();
+    private static final byte FLOAT_RANGE = (byte) ViolationReport.Kind.FLOAT_RANGE.ordinal();
+    private static final byte ENUM_DOMAIN = (byte) ViolationReport.Kind.ENUM_DOMAIN.ordinal();
+
+    private final OverlayLayout layout;
+
+    private final int[] intOffsets;
+    private final int[] intCodes;
+    private final int[] intMins;
+    private final int[] intSpans;         // max - min，按无符号数比较
+
+    private final int[] floatOffsets;
+    private final int[] floatCodes;
+    private final double[] floatMins;
+    private final double[] floatMaxs;
+
+    private final int[] enumOffsets;      // 指向eeCode
+    private final int[] enumCodes;
+    private final EnumDomain[] enumDomains;
+
+    public OverlayValidator(OverlayLayout layout) {
+        this.layout = layout;
+        FarmTable table = layout.table();
+
+        int ints = 0;
+        int floats = 0;
+        int enums = 0;
+        int slots = layout.getSlotCount();
+        int[] intSlots = new int[slots];
+        int[] floatSlots = new int[slots];
+        int[] enumSlots = new int[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            switch (layout.typeTag(slot)) {
+                case 1: // int32
+                    intSlots[ints++] = slot;
+                    break;
+                case 2: // float64
+                    floatSlots[floats++] = slot;
+                    break;
+                case 4: // enumeration
+                    enumSlots[enums++] = slot;
+                    break;
+                default:
+                    // 字符串、布尔值和UUID没有约束
+                    break;
+            }
+        }
+
+        intOffsets = new int[ints];
+        intCodes = new int[ints];
+        intMins = new int[ints];
+        intSpans = new int[ints];
+        for (int i = 0; i < ints; i++) {
+            int slot = intSlots[i];
+            int entry = layout.entry(slot);
+            intOffsets[i] = layout.offset(slot);
+            intCodes[i] = layout.code(slot);
+            intMins[i] = table.intMin(entry);
+            // 上下限颠倒的范围无法满足，按未约束处理（无符号最大跨度）
+            intSpans[i] = table.intMax(entry) >= table.intMin(entry) ? table.intMax(entry) - table.intMin(entry) : -1;
+        }
+
+        floatOffsets = new int[floats];
+        floatCodes = new int[floats];
+        floatMins = new double[floats];
+        floatMaxs = new double[floats];
+        for (int i = 0; i < floats; i++) {
+            int slot = floatSlots[i];
+            int entry = layout.entry(slot);
+            floatOffsets[i] = layout.offset(slot);
+            floatCodes[i] = layout.code(slot);
+            floatMins[i] = table.floatMin(entry);
+            floatMaxs[i] = table.floatMax(entry);
+        }
+
+        enumOffsets = new int[enums];
+        enumCodes = new int[enums];
+        enumDomains = new EnumDomain[enums];
+        for (int i = 0; i < enums; i++) {
+            int slot = enumSlots[i];
+            enumOffsets[i] = layout.offset(slot) + 4;
+            enumCodes[i] = layout.code(slot);
+            enumDomains[i] = table.enumDomain(layout.entry(slot));
+        }
+    }
+
+    public OverlayLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 在公共ForkJoinPool上校验从缓冲区开头连续存放的实例
+     */
+    public ViolationReport validate(ByteBuffer overlays, int instanceCount) {
+        return validate(overlays, 0, layout.getSize(), instanceCount, ForkJoinPool.commonPool(), DEFAULT_MAX_VIOLATIONS);
+    }
+
+    /**
+     * 校验缓冲区中的实例
+     *
+     * @param overlays      实例覆盖，字节序与覆盖数据一致
+     * @param base          第一个实例的起始位置
+     * @param stride        相邻实例起始位置的间距，不小于覆盖大小
+     * @param instanceCount 实例数
+     * @param pool          执行校验的线程池
+     * @param maxViolations 最多保留的违规记录数
+     */
+    public ViolationReport validate(ByteBuffer overlays, int base, int stride, int instanceCount,
+                                    ForkJoinPool pool, int maxViolations) {
+        if (stride < layout.getSize()) {
+            throw new IllegalArgumentException("实例间距" + stride + "小于覆盖大小" + layout.getSize());
+        }
+        if (instanceCount < 0 || base < 0 || (long) base + (long) stride * instanceCount > overlays.limit()) {
+            throw new IllegalArgumentException("缓冲区容纳不下" + instanceCount + "个实例");
+        }
+
+        Violations result = pool.invoke(new ValidateTask(overlays, base, stride, 0, instanceCount, Math.max(0, maxViolations)));
+        return new ViolationReport(layout.getCategory(), instanceCount, result.total,
+                Arrays.copyOf(result.instances, result.size), Arrays.copyOf(result.codes, result.size),
+                Arrays.copyOf(result.kinds, result.size));
+    }
+
+    /**
+     * 顺序校验 {@code [from, to)} 的实例
+     */
+    private void validateRange(ByteBuffer overlays, int base, int stride, int from, int to, Violations out) {
+        for (int instance = from; instance < to; instance++) {
+            int position = base + instance * stride;
+
+            for (int i = 0; i < intOffsets.length; i++) {
+                int value = overlays.getInt(position + intOffsets[i]);
+                if (Integer.compareUnsigned(value - intMins[i], intSpans[i]) > 0) {
+                    out.add(instance, intCodes[i], INT_RANGE);
+                }
+            }
+
+            for (int i = 0; i < floatOffsets.length; i++) {
+                double value = overlays.getDouble(position + floatOffsets[i]);
+                if (!(value >= floatMins[i] && value <= floatMaxs[i])) {
+                    out.add(instance, floatCodes[i], FLOAT_RANGE);
+                }
+            }
+
+            for (int i = 0; i < enumOffsets.length; i++) {
+                if (!enumDomains[i].contains(overlays.getInt(position + enumOffsets[i]))) {
+                    out.add(instance, enumCodes[i], ENUM_DOMAIN);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial") // 任务只在ForkJoinPool中执行，不会被序列化
+    private final class ValidateTask extends RecursiveTask<Violations> {
+        private final ByteBuffer overlays;
+        private final int base;
+        private final int stride;
+        private final int from;
+        private final int to;
+        private final int maxViolations;
+
+        ValidateTask(ByteBuffer overlays, int base, int stride, int from, int to, int maxViolations) {
+            this.overlays = overlays;
+            this.base = base;
+            this.stride = stride;
+            this.from = from;
+            this.to = to;
+            this.maxViolations = maxViolations;
+        }
+
+        @Override
+        protected Violations compute() {
+            if (to - from <= MIN_SPLIT_INSTANCES) {
+                Violations violations = new Violations(maxViolations);
+                validateRange(overlays, base, stride, from, to, violations);
+                return violations;
+            }
+            int middle = (from + to) >>> 1;
+            ValidateTask left = new ValidateTask(overlays, base, stride, from, middle, maxViolations);
+            ValidateTask right = new ValidateTask(overlays, base, stride, middle, to, maxViolations);
+            right.fork();
+            Violations result = left.compute();
+            result.append(right.join());
+            return result;
+        }
+    }
+
+    /**
+     * 可增长的违规记录，超过上限后只计数
+     */
+    private static final class Violations {
+        private final int limit;
+        private int[] instances = new int[0];
+        private int[] codes = new int[0];
+        private byte[] kinds = new byte[0];
+        private int size;
+        private long total;
+
+        Violations(int limit) {
+            this.limit = limit;
+        }
+
+        void add(int instance, int code, byte kind) {
+            total++;
+            if (size == limit) {
+                return;
+            }
+            if (size == instances.length) {
+                grow(size + 1);
+            }
+            instances[size] = instance;
+            codes[size] = code;
+            kinds[size] = kind;
+            size++;
+        }
+
+        void append(Violations other) {
+            total += other.total;
+            int count = Math.min(other.size, limit - size);
+            if (count <= 0) {
+                return;
+            }
+            if (size + count > instances.length) {
+                grow(size + count);
+            }
+            System.arraycopy(other.instances, 0, instances, size, count);
+            System.arraycopy(other.codes, 0, codes, size, count);
+            System.arraycopy(other.kinds, 0, kinds, size, count);
+            size += count;
+        }
+
+        private void grow(int minCapacity) {
+            int capacity = (int) Math.min(limit, Math.max(minCapacity, Math.max(16L, instances.length * 2L)));
+            instances = Arrays.copyOf(instances, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+        }
+    }
+}
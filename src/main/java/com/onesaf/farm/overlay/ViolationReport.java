@@ -0,0 +1,109 @@
+package com.onesaf.farm.overlay;
+
+/**
+ * 属性覆盖校验的违规报告
+ * <p>
+ * 每条违规记录实例下标、属性代码和违规类型，存放在平行的基本类型数组中。
+ * 记录按实例下标排列，同一实例内依次为int32、float64和枚举属性。
+ * 违规条数超过上限时只保留前面的记录，{@link #getTotalCount()} 仍是全部违规数。
+ */
+public final class ViolationReport {
+    /**
+     * 违规类型
+     */
+    public enum Kind {
+        /**
+         * int32值超出取值范围
+         */
+        INT_RANGE,
+        /**
+         * float64值超出取值范围或为NaN
+         */
+        FLOAT_RANGE,
+        /**
+         * 枚举代码不在有效值域内
+         */
+        ENUM_DOMAIN
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final int category;
+    private final int instanceCount;
+    private final long totalCount;
+    private final int[] instances;
+    private final int[] attributeCodes;
+    private final byte[] kinds;
+
+    ViolationReport(int category, int instanceCount, long totalCount, int[] instances, int[] attributeCodes, byte[] kinds) {
+        this.category = category;
+        this.instanceCount = instanceCount;
+        this.totalCount = totalCount;
+        this.instances = instances;
+        this.attributeCodes = attributeCodes;
+        this.kinds = kinds;
+    }
+
+    public int getCategory() {
+        return category;
+    }
+
+    /**
+     * 校验的实例数
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    /**
+     * 全部违规数，包括超过上限未保留的
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 保留的违规记录数
+     */
+    public int size() {
+        return instances.length;
+    }
+
+    /**
+     * 违规数超过上限，部分记录未保留
+     */
+    public boolean isTruncated() {
+        return totalCount > instances.length;
+    }
+
+    public boolean isValid() {
+        return totalCount == 0;
+    }
+
+    /**
+     * 第 {@code index} 条违规的实例下标
+     */
+    public int getInstance(int index) {
+        return instances[index];
+    }
+
+    /**
+     * 第 {@code index} 条违规的属性代码
+     */
+    public int getAttributeCode(int index) {
+        return attributeCodes[index];
+    }
+
+    /**
+     * 第 {@code index} 条违规的类型
+     */
+    public Kind getKind(int index) {
+        return KINDS[kinds[index]];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("特征类别%d: %d个实例, %d处违规%s", category, instanceCount, totalCount,
+                isTruncated() ? "（仅保留前" + instances.length + "条）" : "");
+    }
+}
@@ -0,0 +1,36 @@
+package com.onesaf.farm.table;
+
+import java.io.IOException;
+
+/**
+ * FARM表单元格回调
+ * <p>
+ * {@link FarmTableDecoder} 每解码一个非空单元格调用一次对应类型的方法，特征不包含的属性（no_data_type）不回调。
+ * 参数都是基本类型，枚举有效值数组由解码器复用，只在回调期间有效，需要保留时由调用方复制。
+ * 所有方法默认不做任何处理。
+ */
+public interface CellVisitor {
+    default void visitInt32(int row, int code, int offset, int defaultValue, int minValue, int maxValue)
+            throws IOException {
+    }
+
+    default void visitFloat64(int row, int code, int offset, double defaultValue, double minValue, double maxValue)
+            throws IOException {
+    }
+
+    default void visitString(int row, int code, int offset) throws IOException {
+    }
+
+    /**
+     * @param validCodes 有效的枚举代码，前 {@code validCount} 项有效
+     */
+    default void visitEnumeration(int row, int code, int offset, int eaCode, int defaultCode,
+                                  int[] validCodes, int validCount) throws IOException {
+    }
+
+    default void visitBoolean(int row, int code, int offset, boolean defaultValue) throws IOException {
+    }
+
+    default void visitUUID(int row, int code, int offset) throws IOException {
+    }
+}
@@ -0,0 +1,122 @@
+package com.onesaf.farm.table;
+
+import java.util.Arrays;
+
+/**
+ * 枚举属性的有效值域：升序、无重复的枚举代码（eeCode）
+ * <p>
+ * 代码分布较密集时额外保存一个从最小代码开始的位图，{@link #contains(int)} 只需一次移位和一次按位与；
+ * 否则在有序数组上二分查找。位图的位数不超过 {@link #MIN_BITSET_SPAN} 与代码个数的64倍中的较大者，
+ * 因此位图占用的内存不会超过代码数组的两倍。
+ */
+public final class EnumDomain {
+    /**
+     * 小值域总是可以使用位图的代码跨度（位数）
+     */
+    static final int MIN_BITSET_SPAN = 256;
+
+    private final int[] codes;
+    private final int base;
+    private final long[] bits;
+
+    private EnumDomain(int[] codes) {
+        this.codes = codes;
+        this.base = codes[0];
+        long span = (long) codes[codes.length - 1] - codes[0] + 1;
+        if (span <= Math.max(MIN_BITSET_SPAN, 64L * codes.length)) {
+            bits = new long[(int) ((span + 63) >>> 6)];
+            for (int code : codes) {
+                int bit = code - base;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        } else {
+            bits = null;
+        }
+    }
+
+    /**
+     * 由默认值和有效值列表构造值域，默认值总是包含在内
+     *
+     * @param validCodes 有效枚举代码，只使用前 {@code count} 个
+     */
+    public static EnumDomain of(int defaultCode, int[] validCodes, int count) {
+        int[] codes = Arrays.copyOf(validCodes, count + 1);
+        codes[count] = defaultCode;
+        Arrays.sort(codes);
+
+        int size = 0;
+        for (int i = 0; i < codes.length; i++) {
+            if (i == 0 || codes[i] != codes[size - 1]) {
+                codes[size++] = codes[i];
+            }
+        }
+        return new EnumDomain(size == codes.length ? codes : Arrays.copyOf(codes, size));
+    }
+
+    /**
+     * 由已经升序、无重复的代码数组构造值域，不复制数组
+     */
+    static EnumDomain ofSorted(int[] codes) {
+        if (codes.length == 0) {
+            throw new IllegalStateException("枚举值域不能为空");
+        }
+        return new EnumDomain(codes);
+    }
+
+    /**
+     * 内部代码数组，调用方不得修改
+     */
+    int[] codes() {
+        return codes;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * 第 {@code index} 小的枚举代码
+     */
+    public int get(int index) {
+        return codes[index];
+    }
+
+    public boolean contains(int eeCode) {
+        if (bits != null) {
+            int bit = eeCode - base;
+            // 无符号比较同时排除负数和越界
+            return Integer.compareUnsigned(bit, bits.length << 6) < 0 && (bits[bit >>> 6] & (1L << bit)) != 0;
+        }
+        return Arrays.binarySearch(codes, eeCode) >= 0;
+    }
+
+    /**
+     * 批量检查 {@code eeCodes[from, to)}，结果写入 {@code valid} 的对应位置
+     *
+     * @return 无效值的个数
+     */
+    public int containsAll(int[] eeCodes, int from, int to, boolean[] valid) {
+        int invalid = 0;
+        for (int i = from; i < to; i++) {
+            boolean ok = contains(eeCodes[i]);
+            valid[i] = ok;
+            invalid += ok ? 0 : 1;
+        }
+        return invalid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof EnumDomain && Arrays.equals(codes, ((EnumDomain) o).codes));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(codes);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(codes);
+    }
+}
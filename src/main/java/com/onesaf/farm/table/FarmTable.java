@@ -0,0 +1,756 @@
+package com.onesaf.farm.table;
+
+import com.onesaf.farm.model.AttributeDataType;
+import com.onesaf.farm.model.Enumerant;
+import com.onesaf.farm.model.datatype.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 列式存储的FARM表
+ * <p>
+ * 只保存特征实际包含的属性（稀疏行，CSR格式）：第 {@code row} 行的条目位于
+ * {@code [rowStart(row), rowEnd(row))}，同一行内按属性代码升序排列。
+ * <p>
+ * 条目本身只记录属性代码和描述符下标。描述符（类型、偏移量、整型/浮点取值范围和枚举值域）在构建时去重，
+ * 内容相同的单元格共享同一个描述符，枚举值域同样在各行之间共享。描述符字段存放在平行的基本类型数组中，
+ * 读取时不产生装箱。
+ * <p>
+ * 行号即特征类别。实例构建完成后不可变，可在多个线程间共享。
+ */
+public final class FarmTable {
+    /**
+     * 查找失败时返回的条目下标
+     */
+    public static final int NOT_FOUND = -1;
+
+    public static final FarmTable EMPTY = new Builder(new int[0], 0).build();
+
+    private final int[] columnCodes;
+    private final int maxCode;
+
+    // CSR行索引、列（属性代码）和描述符下标
+    private final int[] rowStart;
+    private final int[] codes;
+    private final int[] descriptorRefs;
+
+    // 平行的描述符数组
+    private final int[] typeTags;
+    private final int[] offsets;
+    private final int[] intDefaults;
+    private final int[] intMins;
+    private final int[] intMaxs;
+    private final double[] floatDefaults;
+    private final double[] floatMins;
+    private final double[] floatMaxs;
+    private final int[] enumAttributeCodes;
+    private final int[] enumDomainRefs;
+    private final EnumDomain[] enumDomains;
+
+    private final InternStats internStats;
+
+    // 旧对象模型的共享实例，按描述符/值域懒生成；对象不可变，并发填充是安全的
+    private final DataType[] dataTypes;
+    private final Map<Long, Set<Enumerant>> enumSets = new ConcurrentHashMap<>();
+
+    private FarmTable(Builder builder) {
+        this.columnCodes = builder.columnCodes;
+        this.maxCode = builder.maxCode;
+        this.rowStart = Arrays.copyOf(builder.rowStart, builder.rows + 1);
+        this.codes = Arrays.copyOf(builder.codes, builder.size);
+        this.descriptorRefs = Arrays.copyOf(builder.descriptorRefs, builder.size);
+
+        int descriptors = builder.descriptorCount;
+        this.typeTags = Arrays.copyOf(builder.typeTags, descriptors);
+        this.offsets = Arrays.copyOf(builder.offsets, descriptors);
+        this.intDefaults = Arrays.copyOf(builder.intDefaults, descriptors);
+        this.intMins = Arrays.copyOf(builder.intMins, descriptors);
+        this.intMaxs = Arrays.copyOf(builder.intMaxs, descriptors);
+        this.floatDefaults = Arrays.copyOf(builder.floatDefaults, descriptors);
+        this.floatMins = Arrays.copyOf(builder.floatMins, descriptors);
+        this.floatMaxs = Arrays.copyOf(builder.floatMaxs, descriptors);
+        this.enumAttributeCodes = Arrays.copyOf(builder.enumAttributeCodes, descriptors);
+        this.enumDomainRefs = Arrays.copyOf(builder.enumDomainRefs, descriptors);
+        this.enumDomains = builder.enumDomains.toArray(new EnumDomain[0]);
+
+        this.internStats = new InternStats(builder.size, descriptors, builder.enumCells, enumDomains.length,
+                builder.enumCodeCount, Arrays.stream(enumDomains).mapToLong(EnumDomain::size).sum());
+        this.dataTypes = new DataType[descriptors];
+    }
+
+    /**
+     * 从 {@link #writeTo} 写出的数据恢复，数组整块读取，不逐个单元格解码
+     */
+    private FarmTable(ByteBuffer in) {
+        this.columnCodes = getInts(in);
+        this.maxCode = Arrays.stream(columnCodes).max().orElse(0);
+        this.rowStart = getInts(in);
+        this.codes = getInts(in);
+        this.descriptorRefs = getInts(in);
+        this.typeTags = getInts(in);
+        this.offsets = getInts(in);
+        this.intDefaults = getInts(in);
+        this.intMins = getInts(in);
+        this.intMaxs = getInts(in);
+        this.floatDefaults = getDoubles(in);
+        this.floatMins = getDoubles(in);
+        this.floatMaxs = getDoubles(in);
+        this.enumAttributeCodes = getInts(in);
+        this.enumDomainRefs = getInts(in);
+        this.enumDomains = new EnumDomain[in.getInt()];
+        for (int i = 0; i < enumDomains.length; i++) {
+            enumDomains[i] = EnumDomain.ofSorted(getInts(in));
+        }
+        this.internStats = new InternStats(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getLong(), in.getLong());
+        this.dataTypes = new DataType[typeTags.length];
+
+        if (rowStart.length == 0 || rowStart[rowStart.length - 1] != codes.length
+                || descriptorRefs.length != codes.length || offsets.length != typeTags.length) {
+            throw new IllegalStateException("FARM表数据不一致");
+        }
+    }
+
+    /**
+     * 从缓冲区读取 {@link #writeTo} 写出的表，字节序由缓冲区决定
+     *
+     * @throws IllegalStateException 数据不完整或不一致
+     */
+    public static FarmTable readFrom(ByteBuffer in) {
+        try {
+            return new FarmTable(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalStateException("FARM表数据不完整", e);
+        }
+    }
+
+    /**
+     * 以整块数组的形式写出全部内容
+     */
+    public void writeTo(ByteBuffer out) {
+        putInts(out, columnCodes);
+        putInts(out, rowStart);
+        putInts(out, codes);
+        putInts(out, descriptorRefs);
+        putInts(out, typeTags);
+        putInts(out, offsets);
+        putInts(out, intDefaults);
+        putInts(out, intMins);
+        putInts(out, intMaxs);
+        putDoubles(out, floatDefaults);
+        putDoubles(out, floatMins);
+        putDoubles(out, floatMaxs);
+        putInts(out, enumAttributeCodes);
+        putInts(out, enumDomainRefs);
+        out.putInt(enumDomains.length);
+        for (EnumDomain domain : enumDomains) {
+            putInts(out, domain.codes());
+        }
+        out.putInt(internStats.getCells());
+        out.putInt(internStats.getDescriptors());
+        out.putInt(internStats.getEnumCells());
+        out.putInt(internStats.getEnumDomains());
+        out.putLong(internStats.getEnumCodes());
+        out.putLong(internStats.getUniqueEnumCodes());
+    }
+
+    /**
+     * {@link #writeTo} 写出的字节数
+     */
+    public int getSerializedSize() {
+        // 14个数组各带一个长度，另有值域个数和去重统计
+        int ints = 14 + columnCodes.length + rowStart.length + 2 * codes.length + 7 * typeTags.length + 1 + 4;
+        int size = ints * Integer.BYTES + 3 * typeTags.length * Double.BYTES + 2 * Long.BYTES;
+        for (EnumDomain domain : enumDomains) {
+            size += (1 + domain.size()) * Integer.BYTES;
+        }
+        return size;
+    }
+
+    private static void putInts(ByteBuffer out, int[] values) {
+        out.putInt(values.length);
+        out.asIntBuffer().put(values);
+        out.position(out.position() + values.length * Integer.BYTES);
+    }
+
+    private static void putDoubles(ByteBuffer out, double[] values) {
+        out.putInt(values.length);
+        out.asDoubleBuffer().put(values);
+        out.position(out.position() + values.length * Double.BYTES);
+    }
+
+    private static int[] getInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    private static double[] getDoubles(ByteBuffer in) {
+        double[] values = new double[in.getInt()];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + values.length * Double.BYTES);
+        return values;
+    }
+
+    /**
+     * 行数（特征类别数）
+     */
+    public int getRowCount() {
+        return rowStart.length - 1;
+    }
+
+    /**
+     * 文件中出现的属性代码（列）数
+     */
+    public int getColumnCount() {
+        return columnCodes.length;
+    }
+
+    /**
+     * 第 {@code column} 列的属性代码
+     */
+    public int getColumnCode(int column) {
+        return columnCodes[column];
+    }
+
+    /**
+     * 最大属性代码
+     */
+    public int getMaxCode() {
+        return maxCode;
+    }
+
+    /**
+     * 非空条目总数
+     */
+    public int getEntryCount() {
+        return codes.length;
+    }
+
+    /**
+     * 去重后的描述符数
+     */
+    public int getDescriptorCount() {
+        return typeTags.length;
+    }
+
+    /**
+     * 去重后的枚举值域数
+     */
+    public int getEnumDomainCount() {
+        return enumDomains.length;
+    }
+
+    /**
+     * 构建时的去重统计
+     */
+    public InternStats getInternStats() {
+        return internStats;
+    }
+
+    public int rowStart(int row) {
+        return rowStart[row];
+    }
+
+    public int rowEnd(int row) {
+        return rowStart[row + 1];
+    }
+
+    /**
+     * 查找特征类别中某属性的条目
+     *
+     * @return 条目下标，不存在时返回 {@link #NOT_FOUND}
+     */
+    public int find(int row, int attributeCode) {
+        if (row < 0 || row >= rowStart.length - 1) {
+            return NOT_FOUND;
+        }
+        int index = Arrays.binarySearch(codes, rowStart[row], rowStart[row + 1], attributeCode);
+        return index >= 0 ? index : NOT_FOUND;
+    }
+
+    /**
+     * 依次访问某特征类别包含的属性，跳过不存在的属性
+     */
+    public void forEachEntry(int row, EntryVisitor visitor) {
+        for (int entry = rowStart[row], end = rowStart[row + 1]; entry < end; entry++) {
+            visitor.visit(entry, codes[entry], typeTags[descriptorRefs[entry]]);
+        }
+    }
+
+    public int code(int entry) {
+        return codes[entry];
+    }
+
+    /**
+     * 条目使用的描述符下标，内容相同的条目下标相同
+     */
+    public int descriptor(int entry) {
+        return descriptorRefs[entry];
+    }
+
+    /**
+     * 条目的数据类型标记，取值同 {@link AttributeDataType#getValue()}
+     */
+    public int typeTag(int entry) {
+        return typeTags[descriptorRefs[entry]];
+    }
+
+    public int offset(int entry) {
+        return offsets[descriptorRefs[entry]];
+    }
+
+    /**
+     * int32的默认值；boolean的默认值（0/1）；枚举的默认枚举代码
+     */
+    public int intDefault(int entry) {
+        return intDefaults[descriptorRefs[entry]];
+    }
+
+    public int intMin(int entry) {
+        return intMins[descriptorRefs[entry]];
+    }
+
+    public int intMax(int entry) {
+        return intMaxs[descriptorRefs[entry]];
+    }
+
+    public double floatDefault(int entry) {
+        return floatDefaults[descriptorRefs[entry]];
+    }
+
+    public double floatMin(int entry) {
+        return floatMins[descriptorRefs[entry]];
+    }
+
+    public double floatMax(int entry) {
+        return floatMaxs[descriptorRefs[entry]];
+    }
+
+    /**
+     * 枚举条目的枚举所属属性代码（eaCode）
+     */
+    public int enumAttributeCode(int entry) {
+        return enumAttributeCodes[descriptorRefs[entry]];
+    }
+
+    /**
+     * 枚举条目的值域，非枚举条目返回null
+     */
+    public EnumDomain enumDomain(int entry) {
+        int ref = enumDomainRefs[descriptorRefs[entry]];
+        return ref < 0 ? null : enumDomains[ref];
+    }
+
+    /**
+     * 检查枚举代码是否属于某特征类别中某枚举属性的值域
+     *
+     * @return 属性存在、为枚举类型且代码有效时返回true
+     */
+    public boolean isValidEnumerant(int row, int attributeCode, int eeCode) {
+        int entry = find(row, attributeCode);
+        if (entry == NOT_FOUND) {
+            return false;
+        }
+        int ref = enumDomainRefs[descriptorRefs[entry]];
+        return ref >= 0 && enumDomains[ref].contains(eeCode);
+    }
+
+    /**
+     * 批量检查 {@code eeCodes[from, to)}，结果写入 {@code valid} 的对应位置；属性不存在或不是枚举时全部无效
+     *
+     * @return 无效值的个数
+     */
+    public int isValidEnumerants(int row, int attributeCode, int[] eeCodes, int from, int to, boolean[] valid) {
+        int entry = find(row, attributeCode);
+        int ref = entry == NOT_FOUND ? -1 : enumDomainRefs[descriptorRefs[entry]];
+        if (ref < 0) {
+            Arrays.fill(valid, from, to, false);
+            return to - from;
+        }
+        return enumDomains[ref].containsAll(eeCodes, from, to, valid);
+    }
+
+    /**
+     * 单个条目对应的旧对象模型 {@link DataType}
+     * <p>
+     * 返回的实例不可变，并被所有内容相同的条目共享。
+     */
+    public DataType toDataType(int entry) {
+        int descriptor = descriptorRefs[entry];
+        DataType dataType = dataTypes[descriptor];
+        if (dataType == null) {
+            dataType = createDataType(descriptor);
+            dataTypes[descriptor] = dataType;
+        }
+        return dataType;
+    }
+
+    private DataType createDataType(int descriptor) {
+        int offset = offsets[descriptor];
+        switch (typeTags[descriptor]) {
+            case 1: // int32
+                return new InstantiatedDataType<>(offset, intDefaults[descriptor], intMins[descriptor], intMaxs[descriptor]);
+            case 2: // float64
+                return new InstantiatedDataType<>(offset, floatDefaults[descriptor], floatMins[descriptor], floatMaxs[descriptor]);
+            case 3: // string
+                return new StringDataType(offset);
+            case 4: // enumeration
+                int eaCode = enumAttributeCodes[descriptor];
+                Set<Enumerant> validEnums = enumSet(enumDomainRefs[descriptor], eaCode);
+                return new EnumerantDataType(offset, new Enumerant(null, null, eaCode, intDefaults[descriptor]), validEnums);
+            case 5: // boolean
+                return new BooleanDataType(offset, intDefaults[descriptor] != 0);
+            case 6: // uuid
+                return new UUIDDataType(offset);
+            default:
+                throw new IllegalStateException("未知的数据类型标记: " + typeTags[descriptor]);
+        }
+    }
+
+    /**
+     * 值域和属性代码都相同的枚举描述符共享同一个有效值集合，集合只通过 {@link EnumerantDataType} 的只读视图对外暴露
+     */
+    private Set<Enumerant> enumSet(int domainRef, int eaCode) {
+        return enumSets.computeIfAbsent(((long) domainRef << 32) | (eaCode & 0xFFFFFFFFL), key -> {
+            EnumDomain domain = enumDomains[domainRef];
+            Set<Enumerant> set = new HashSet<>();
+            for (int i = 0; i < domain.size(); i++) {
+                set.add(new Enumerant(null, null, eaCode, domain.get(i)));
+            }
+            return set;
+        });
+    }
+
+    /**
+     * 转换为旧的二维列表形式：每行长度为 {@code maxCode + 1}，不存在的属性为null
+     */
+    public List<List<DataType>> toDataTypeRows() {
+        int rows = getRowCount();
+        List<List<DataType>> result = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            List<DataType> rowData = new ArrayList<>(Collections.nCopies(maxCode + 1, null));
+            for (int entry = rowStart[row], end = rowStart[row + 1]; entry < end; entry++) {
+                rowData.set(codes[entry], toDataType(entry));
+            }
+            result.add(Collections.unmodifiableList(rowData));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 稀疏行访问回调
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(int entry, int attributeCode, int typeTag);
+    }
+
+    /**
+     * 按行追加条目的构建器，同一行内的条目可以任意顺序加入，{@link #endRow()} 时按属性代码排序
+     * <p>
+     * 每个单元格按解码后的内容在描述符池中查找，已存在时直接复用已有描述符。
+     */
+    public static final class Builder {
+        private final int[] columnCodes;
+        private final int maxCode;
+        private int rows = 0;
+        private int size = 0;
+        private int rowBegin = 0;
+
+        private int[] rowStart;
+        private int[] codes;
+        private int[] descriptorRefs;
+
+        // 描述符池：下标descriptorCount处是待提交的候选描述符
+        private int descriptorCount = 0;
+        private int[] typeTags;
+        private int[] offsets;
+        private int[] intDefaults;
+        private int[] intMins;
+        private int[] intMaxs;
+        private double[] floatDefaults;
+        private double[] floatMins;
+        private double[] floatMaxs;
+        private int[] enumAttributeCodes;
+        private int[] enumDomainRefs;
+        // 开放寻址哈希表，槽中存放描述符下标+1，0表示空槽
+        private int[] slots = new int[64];
+
+        private final List<EnumDomain> enumDomains = new ArrayList<>();
+        private final Map<EnumDomain, Integer> enumDomainIds = new HashMap<>();
+        private int enumCells = 0;
+        private long enumCodeCount = 0;
+
+        /**
+         * @param columnCodes  文件中的属性代码列
+         * @param expectedRows 预计行数
+         */
+        public Builder(int[] columnCodes, int expectedRows) {
+            this.columnCodes = columnCodes.clone();
+            this.maxCode = Arrays.stream(columnCodes).max().orElse(0);
+            this.rowStart = new int[Math.max(expectedRows, 1) + 1];
+            this.codes = new int[16];
+            this.descriptorRefs = new int[16];
+            int capacity = 16;
+            this.typeTags = new int[capacity];
+            this.offsets = new int[capacity];
+            this.intDefaults = new int[capacity];
+            this.intMins = new int[capacity];
+            this.intMaxs = new int[capacity];
+            this.floatDefaults = new double[capacity];
+            this.floatMins = new double[capacity];
+            this.floatMaxs = new double[capacity];
+            this.enumAttributeCodes = new int[capacity];
+            this.enumDomainRefs = new int[capacity];
+        }
+
+        public Builder addInt32(int code, int offset, int defaultValue, int minValue, int maxValue) {
+            int candidate = candidate(AttributeDataType.INT32, offset);
+            intDefaults[candidate] = defaultValue;
+            intMins[candidate] = minValue;
+            intMaxs[candidate] = maxValue;
+            return append(code);
+        }
+
+        public Builder addFloat64(int code, int offset, double defaultValue, double minValue, double maxValue) {
+            int candidate = candidate(AttributeDataType.FLOAT64, offset);
+            floatDefaults[candidate] = defaultValue;
+            floatMins[candidate] = minValue;
+            floatMaxs[candidate] = maxValue;
+            return append(code);
+        }
+
+        public Builder addString(int code, int offset) {
+            candidate(AttributeDataType.STRING, offset);
+            return append(code);
+        }
+
+        /**
+         * @param eaCode     枚举所属的属性代码
+         * @param validCodes 有效枚举代码，只使用前 {@code validCount} 个，可以无序、可以不含默认值
+         */
+        public Builder addEnumeration(int code, int offset, int eaCode, int defaultCode, int[] validCodes, int validCount) {
+            int candidate = candidate(AttributeDataType.ENUMERATION, offset);
+            intDefaults[candidate] = defaultCode;
+            enumAttributeCodes[candidate] = eaCode;
+            enumDomainRefs[candidate] = internEnumDomain(EnumDomain.of(defaultCode, validCodes, validCount));
+            enumCells++;
+            enumCodeCount += validCount + 1;
+            return append(code);
+        }
+
+        public Builder addBoolean(int code, int offset, boolean defaultValue) {
+            int candidate = candidate(AttributeDataType.BOOLEAN, offset);
+            intDefaults[candidate] = defaultValue ? 1 : 0;
+            return append(code);
+        }
+
+        public Builder addUUID(int code, int offset) {
+            candidate(AttributeDataType.UUID, offset);
+            return append(code);
+        }
+
+        /**
+         * 结束当前行
+         */
+        public Builder endRow() {
+            sortRow(rowBegin, size);
+            if (rows + 1 >= rowStart.length) {
+                rowStart = Arrays.copyOf(rowStart, rowStart.length * 2);
+            }
+            rows++;
+            rowStart[rows] = size;
+            rowBegin = size;
+            return this;
+        }
+
+        /**
+         * 追加另一张表的全部行，描述符和枚举值域按首次出现的顺序重新去重
+         * <p>
+         * 按行顺序依次追加各分段的结果，得到的表与顺序解码完全相同。
+         */
+        public Builder appendRows(FarmTable part) {
+            if (rowBegin != size) {
+                throw new IllegalStateException("当前行尚未结束");
+            }
+            int[] descriptorMap = new int[part.typeTags.length];
+            Arrays.fill(descriptorMap, -1);
+
+            for (int row = 0; row < part.getRowCount(); row++) {
+                for (int entry = part.rowStart[row]; entry < part.rowStart[row + 1]; entry++) {
+                    int local = part.descriptorRefs[entry];
+                    if (descriptorMap[local] < 0) {
+                        int candidate = candidate(AttributeDataType.fromValue(part.typeTags[local]), part.offsets[local]);
+                        intDefaults[candidate] = part.intDefaults[local];
+                        intMins[candidate] = part.intMins[local];
+                        intMaxs[candidate] = part.intMaxs[local];
+                        floatDefaults[candidate] = part.floatDefaults[local];
+                        floatMins[candidate] = part.floatMins[local];
+                        floatMaxs[candidate] = part.floatMaxs[local];
+                        enumAttributeCodes[candidate] = part.enumAttributeCodes[local];
+                        int domainRef = part.enumDomainRefs[local];
+                        enumDomainRefs[candidate] = domainRef < 0 ? -1 : internEnumDomain(part.enumDomains[domainRef]);
+                        descriptorMap[local] = internCandidate();
+                    }
+                    if (size == codes.length) {
+                        codes = Arrays.copyOf(codes, size * 2);
+                        descriptorRefs = Arrays.copyOf(descriptorRefs, size * 2);
+                    }
+                    codes[size] = part.codes[entry];
+                    descriptorRefs[size] = descriptorMap[local];
+                    size++;
+                }
+                endRow();
+            }
+            enumCells += part.internStats.getEnumCells();
+            enumCodeCount += part.internStats.getEnumCodes();
+            return this;
+        }
+
+        public FarmTable build() {
+            if (rowBegin != size) {
+                throw new IllegalStateException("最后一行尚未结束");
+            }
+            return new FarmTable(this);
+        }
+
+        /**
+         * 在池末尾准备一个候选描述符，未用到的字段清零以便比较
+         */
+        private int candidate(AttributeDataType type, int offset) {
+            if (descriptorCount == typeTags.length) {
+                growDescriptors();
+            }
+            int candidate = descriptorCount;
+            typeTags[candidate] = type.getValue();
+            offsets[candidate] = offset;
+            intDefaults[candidate] = 0;
+            intMins[candidate] = 0;
+            intMaxs[candidate] = 0;
+            floatDefaults[candidate] = 0;
+            floatMins[candidate] = 0;
+            floatMaxs[candidate] = 0;
+            enumAttributeCodes[candidate] = 0;
+            enumDomainRefs[candidate] = -1;
+            return candidate;
+        }
+
+        /**
+         * 提交候选描述符并追加条目
+         */
+        private Builder append(int code) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+                descriptorRefs = Arrays.copyOf(descriptorRefs, size * 2);
+            }
+            codes[size] = code;
+            descriptorRefs[size] = internCandidate();
+            size++;
+            return this;
+        }
+
+        private int internCandidate() {
+            int candidate = descriptorCount;
+            int mask = slots.length - 1;
+            for (int slot = hash(candidate) & mask; ; slot = (slot + 1) & mask) {
+                int existing = slots[slot] - 1;
+                if (existing < 0) {
+                    slots[slot] = candidate + 1;
+                    descriptorCount++;
+                    if (descriptorCount * 2 > slots.length) {
+                        rehash();
+                    }
+                    return candidate;
+                }
+                if (sameDescriptor(existing, candidate)) {
+                    return existing;
+                }
+            }
+        }
+
+        private int hash(int d) {
+            int h = typeTags[d];
+            h = 31 * h + offsets[d];
+            h = 31 * h + intDefaults[d];
+            h = 31 * h + intMins[d];
+            h = 31 * h + intMaxs[d];
+            h = 31 * h + Double.hashCode(floatDefaults[d]);
+            h = 31 * h + Double.hashCode(floatMins[d]);
+            h = 31 * h + Double.hashCode(floatMaxs[d]);
+            h = 31 * h + enumAttributeCodes[d];
+            h = 31 * h + enumDomainRefs[d];
+            return h ^ (h >>> 16);
+        }
+
+        private boolean sameDescriptor(int a, int b) {
+            return typeTags[a] == typeTags[b]
+                    && offsets[a] == offsets[b]
+                    && intDefaults[a] == intDefaults[b]
+                    && intMins[a] == intMins[b]
+                    && intMaxs[a] == intMaxs[b]
+                    && Double.doubleToLongBits(floatDefaults[a]) == Double.doubleToLongBits(floatDefaults[b])
+                    && Double.doubleToLongBits(floatMins[a]) == Double.doubleToLongBits(floatMins[b])
+                    && Double.doubleToLongBits(floatMaxs[a]) == Double.doubleToLongBits(floatMaxs[b])
+                    && enumAttributeCodes[a] == enumAttributeCodes[b]
+                    && enumDomainRefs[a] == enumDomainRefs[b];
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int d = 0; d < descriptorCount; d++) {
+                int slot = hash(d) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = d + 1;
+            }
+        }
+
+        private int internEnumDomain(EnumDomain domain) {
+            Integer id = enumDomainIds.get(domain);
+            if (id == null) {
+                id = enumDomains.size();
+                enumDomains.add(domain);
+                enumDomainIds.put(domain, id);
+            }
+            return id;
+        }
+
+        private void growDescriptors() {
+            int capacity = typeTags.length * 2;
+            typeTags = Arrays.copyOf(typeTags, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            intDefaults = Arrays.copyOf(intDefaults, capacity);
+            intMins = Arrays.copyOf(intMins, capacity);
+            intMaxs = Arrays.copyOf(intMaxs, capacity);
+            floatDefaults = Arrays.copyOf(floatDefaults, capacity);
+            floatMins = Arrays.copyOf(floatMins, capacity);
+            floatMaxs = Arrays.copyOf(floatMaxs, capacity);
+            enumAttributeCodes = Arrays.copyOf(enumAttributeCodes, capacity);
+            enumDomainRefs = Arrays.copyOf(enumDomainRefs, capacity);
+        }
+
+        /**
+         * 行内插入排序；文件中的列通常已经有序，此时只做一次比较
+         */
+        private void sortRow(int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                for (int j = i; j > from && codes[j - 1] > codes[j]; j--) {
+                    swap(codes, j - 1, j);
+                    swap(descriptorRefs, j - 1, j);
+                }
+            }
+        }
+
+        private static void swap(int[] array, int a, int b) {
+            int t = array[a];
+            array[a] = array[b];
+            array[b] = t;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.onesaf.farm.table;
+
+import com.onesaf.farm.util.BinaryReader;
+import com.onesaf.farm.util.ByteBufferBinaryReader;
+import com.onesaf.farm.util.ParseTracer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * FARM表单元格解码器
+ * <p>
+ * 每个单元格以UInt16数据类型开头，随后是该类型的定长字段；枚举单元格另带一个变长的有效值列表。
+ * 实例持有可复用的临时数组，不是线程安全的，每个线程应使用自己的实例。
+ * 设置了 {@link ParseTracer} 时每个单元格记录一个事件，不再逐个单元格写日志。
+ */
+@Slf4j
+public final class FarmTableDecoder {
+    // 各数据类型在类型标记之后的定长字节数，枚举不含有效值列表
+    private static final int[] FIXED_CELL_BYTES = {0, 16, 28, 4, 16, 8, 4};
+
+    // 并行解码时每段的最少行数
+    private static final int MIN_SEGMENT_ROWS = 16;
+
+    private final int[] codes;
+    private int[] validCodes = new int[16];
+    private BuilderVisitor builderVisitor;
+    private ParseTracer tracer;
+
+    /**
+     * @param codes 文件中的属性代码列
+     */
+    public FarmTableDecoder(int[] codes) {
+        this.codes = codes;
+    }
+
+    public int[] getCodes() {
+        return codes;
+    }
+
+    /**
+     * 设置记录单元格事件的跟踪器，为null时不记录
+     */
+    public void setTracer(ParseTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * 解码一整行并加入构建器，调用方负责 {@link FarmTable.Builder#endRow()}
+     */
+    public void decodeRow(BinaryReader reader, int row, FarmTable.Builder builder) throws IOException {
+        if (builderVisitor == null || builderVisitor.builder != builder) {
+            builderVisitor = new BuilderVisitor(builder);
+        }
+        decodeRow(reader, row, (CellVisitor) builderVisitor);
+    }
+
+    /**
+     * 解码一整行，每个非空单元格回调一次
+     */
+    public void decodeRow(BinaryReader reader, int row, CellVisitor visitor) throws IOException {
+        for (int column = 0; column < codes.length; column++) {
+            int code = codes[column];
+            int dataType = reader.readUInt16();
+            if (tracer != null) {
+                tracer.record(ParseTracer.CELL, reader.bytesRead() - 2, row, column, code, dataType);
+            }
+
+            switch (dataType) {
+                case 0: // no_data_type
+                    // 特征不包含该属性
+                    break;
+                case 1: // int32
+                    visitor.visitInt32(row, code, reader.readInt32(),
+                            reader.readInt32(), reader.readInt32(), reader.readInt32());
+                    break;
+                case 2: // float64
+                    visitor.visitFloat64(row, code, reader.readInt32(),
+                            reader.readFloat64(), reader.readFloat64(), reader.readFloat64());
+                    break;
+                case 3: // string
+                    visitor.visitString(row, code, reader.readInt32());
+                    break;
+                case 4: // enumeration
+                    int offset = reader.readInt32();
+
+                    // 读取默认枚举值
+                    int eaCode = reader.readInt32();
+                    int defaultCode = reader.readInt32();
+
+                    // 读取有效的枚举值列表
+                    int numValidEnums = reader.readInt32();
+                    // 每个有效值8字节，超出剩余数据的数量说明文件已损坏，不能按它分配数组
+                    if (numValidEnums < 0 || numValidEnums > reader.remaining() / 8) {
+                        throw new IOException("有效枚举值数量无效: " + numValidEnums);
+                    }
+                    // 枚举域只按枚举代码存储，有效值的属性代码必须与默认值相同
+                    for (int i = 0; i < numValidEnums; i++) {
+                        // 流式读取时剩余长度未知，数组随实际读到的值增长
+                        if (i == validCodes.length) {
+                            validCodes = Arrays.copyOf(validCodes, validCodes.length * 2);
+                        }
+                        int validEaCode = reader.readInt32();
+                        if (validEaCode != eaCode) {
+                            throw new IOException("行 " + row + " 属性 " + code + " 的有效枚举值属性代码 "
+                                    + validEaCode + " 与默认值属性代码 " + eaCode + " 不一致");
+                        }
+                        validCodes[i] = reader.readInt32();
+                    }
+
+                    visitor.visitEnumeration(row, code, offset, eaCode, defaultCode, validCodes, numValidEnums);
+                    break;
+                case 5: // boolean
+                    visitor.visitBoolean(row, code, reader.readInt32(), reader.readInt32() != 0);
+                    break;
+                case 6: // uuid
+                    visitor.visitUUID(row, code, reader.readInt32());
+                    break;
+                default:
+                    throw new IOException("在FARM表中发现不支持的数据类型: " + dataType);
+            }
+        }
+    }
+
+    /**
+     * 并行解码全部行
+     * <p>
+     * 按 {@link #scanRows} 得到的行边界把表分成若干段，每段在执行器上解码为独立的表，
+     * 最后按行顺序合并并重新去重，结果与顺序解码完全相同。
+     *
+     * @param data         包含整个FARM表的缓冲区，字节序已设置
+     * @param codes        属性代码列
+     * @param rowPositions 行边界
+     * @param executor     执行解码任务的执行器
+     * @param parallelism  并行度，用于确定分段数
+     */
+    public static FarmTable decodeParallel(ByteBuffer data, int[] codes, int[] rowPositions,
+                                           Executor executor, int parallelism) throws IOException {
+        int numRows = rowPositions.length - 1;
+        // 每个线程分到多段以平衡各行长度的差异
+        int segmentCount = Math.max(1, parallelism * 4);
+        int segmentRows = Math.max(MIN_SEGMENT_ROWS, (numRows + segmentCount - 1) / segmentCount);
+
+        List<CompletableFuture<FarmTable>> segments = new ArrayList<>();
+        for (int first = 0; first < numRows; first += segmentRows) {
+            int from = first;
+            int to = Math.min(numRows, first + segmentRows);
+            segments.add(CompletableFuture.supplyAsync(() -> decodeSegment(data, codes, rowPositions, from, to), executor));
+        }
+
+        FarmTable.Builder builder = new FarmTable.Builder(codes, numRows);
+        try {
+            for (CompletableFuture<FarmTable> segment : segments) {
+                builder.appendRows(segment.join());
+            }
+        } catch (CompletionException e) {
+            segments.forEach(segment -> segment.cancel(false));
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("并行解码FARM表时出错: " + cause.getMessage(), cause);
+        }
+        return builder.build();
+    }
+
+    private static FarmTable decodeSegment(ByteBuffer data, int[] codes, int[] rowPositions, int from, int to) {
+        ByteBuffer view = data.duplicate().order(data.order());
+        view.position(rowPositions[from]);
+        ByteBufferBinaryReader reader = new ByteBufferBinaryReader(view, data.order());
+
+        FarmTableDecoder decoder = new FarmTableDecoder(codes);
+        FarmTable.Builder builder = new FarmTable.Builder(codes, to - from);
+        try {
+            for (int row = from; row < to; row++) {
+                decoder.decodeRow(reader, row, builder);
+                builder.endRow();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 扫描行边界：只读取数据类型和枚举个数，跳过其余字段
+     *
+     * @param buffer  按文件字节序设置好的缓冲区，使用绝对位置读取，不修改其位置
+     * @param start   第一行的起始位置
+     * @param numRows 行数
+     * @return 长度为 {@code numRows + 1} 的数组，第i项是第i行的起始位置，最后一项是表的结束位置
+     */
+    public int[] scanRows(ByteBuffer buffer, int start, int numRows) throws IOException {
+        int[] rowPositions = new int[numRows + 1];
+        int limit = buffer.limit();
+        int position = start;
+        try {
+            for (int row = 0; row < numRows; row++) {
+                rowPositions[row] = position;
+                for (int column = 0; column < codes.length; column++) {
+                    int dataType = buffer.getShort(position) & 0xFFFF;
+                    if (dataType >= FIXED_CELL_BYTES.length) {
+                        throw new IOException("在FARM表中发现不支持的数据类型: " + dataType);
+                    }
+                    position += 2 + FIXED_CELL_BYTES[dataType];
+                    if (dataType == 4) {
+                        int numValidEnums = buffer.getInt(position - 4);
+                        if (numValidEnums < 0 || numValidEnums > (limit - position) / 8) {
+                            throw new IOException("有效枚举值数量无效: " + numValidEnums);
+                        }
+                        position += numValidEnums * 8;
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("扫描FARM表时遇到文件结束", e);
+        }
+        if (position > limit) {
+            throw new IOException("扫描FARM表时遇到文件结束");
+        }
+        rowPositions[numRows] = position;
+        return rowPositions;
+    }
+
+    /**
+     * 把单元格回调转为构建器的条目
+     */
+    private static final class BuilderVisitor implements CellVisitor {
+        private final FarmTable.Builder builder;
+
+        BuilderVisitor(FarmTable.Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void visitInt32(int row, int code, int offset, int defaultValue, int minValue, int maxValue) {
+            builder.addInt32(code, offset, defaultValue, minValue, maxValue);
+        }
+
+        @Override
+        public void visitFloat64(int row, int code, int offset, double defaultValue, double minValue, double maxValue) {
+            builder.addFloat64(code, offset, defaultValue, minValue, maxValue);
+        }
+
+        @Override
+        public void visitString(int row, int code, int offset) {
+            builder.addString(code, offset);
+        }
+
+        @Override
+        public void visitEnumeration(int row, int code, int offset, int eaCode, int defaultCode,
+                                     int[] validCodes, int validCount) {
+            builder.addEnumeration(code, offset, eaCode, defaultCode, validCodes, validCount);
+        }
+
+        @Override
+        public void visitBoolean(int row, int code, int offset, boolean defaultValue) {
+            builder.addBoolean(code, offset, defaultValue);
+        }
+
+        @Override
+        public void visitUUID(int row, int code, int offset) {
+            builder.addUUID(code, offset);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.onesaf.farm.table;
+
+import lombok.Getter;
+
+/**
+ * FARM表构建时的去重统计
+ * <p>
+ * 内存估算只计算数组元素本身：每个描述符占用7个int和3个double，每个条目额外占用一个int的描述符下标，
+ * 每个枚举值域按其代码个数计算，另加对象头和数组头。
+ */
+@Getter
+public final class InternStats {
+    private static final int DESCRIPTOR_BYTES = 7 * Integer.BYTES + 3 * Double.BYTES;
+    private static final int DOMAIN_OVERHEAD_BYTES = 16 + 16;
+
+    private final int cells;                 // 非空单元格数
+    private final int descriptors;           // 去重后的描述符数
+    private final int enumCells;             // 枚举单元格数
+    private final int enumDomains;           // 去重后的枚举值域数
+    private final long enumCodes;            // 所有枚举单元格的代码总数
+    private final long uniqueEnumCodes;      // 去重后值域的代码总数
+
+    public InternStats(int cells, int descriptors, int enumCells, int enumDomains, long enumCodes, long uniqueEnumCodes) {
+        this.cells = cells;
+        this.descriptors = descriptors;
+        this.enumCells = enumCells;
+        this.enumDomains = enumDomains;
+        this.enumCodes = enumCodes;
+        this.uniqueEnumCodes = uniqueEnumCodes;
+    }
+
+    /**
+     * 不去重时的估算字节数
+     */
+    public long getBytesWithoutInterning() {
+        return (long) cells * DESCRIPTOR_BYTES
+                + enumCodes * Integer.BYTES + (long) enumCells * DOMAIN_OVERHEAD_BYTES;
+    }
+
+    /**
+     * 去重后的估算字节数
+     */
+    public long getBytesWithInterning() {
+        return (long) cells * Integer.BYTES + (long) descriptors * DESCRIPTOR_BYTES
+                + uniqueEnumCodes * Integer.BYTES + (long) enumDomains * DOMAIN_OVERHEAD_BYTES;
+    }
+
+    /**
+     * 去重节省的估算字节数
+     */
+    public long getBytesSaved() {
+        return getBytesWithoutInterning() - getBytesWithInterning();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("单元格 %d -> 描述符 %d, 枚举值域 %d -> %d, 估算内存 %d -> %d 字节 (节省 %d 字节)",
+                cells, descriptors, enumCells, enumDomains,
+                getBytesWithoutInterning(), getBytesWithInterning(), getBytesSaved());
+    }
+}
@@ -0,0 +1,195 @@
+package com.onesaf.farm.table;
+
+import com.onesaf.farm.model.datatype.DataType;
+import com.onesaf.farm.util.ByteBufferBinaryReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按需解码的FARM表行
+ * <p>
+ * 加载时只记录每行的起始位置（枚举有效值列表是变长的，必须扫描一遍才能定位），
+ * 某个特征类别第一次被访问时才解码该行，解码结果（单行的列式表和 {@link DataType} 列表）缓存并共享。
+ * 多个线程同时访问同一行时各自解码，只有第一个结果被发布，其余线程使用已发布的结果。
+ * 枚举有效性检查只解码被检查的行，只有 {@link #toFarmTable()} 才解码全部行。
+ * <p>
+ * 生命周期：未解码的行一直从构造时传入的缓冲区读取，因此该缓冲区在本对象（以及引用它的快照）
+ * 存活期间必须保持内容不变。不要直接传入文件映射的缓冲区——文件被改写或截断后会解码出错误数据或触发SIGBUS，
+ * 应先复制到堆缓冲区。
+ */
+public final class LazyFarmRows {
+    private final ByteBuffer data;
+    private final int[] codes;
+    private final int maxCode;
+    private final int[] rowPositions;
+    private final AtomicReferenceArray<FarmTable> rowTables;
+    private final AtomicReferenceArray<List<DataType>> rows;
+
+    // 内容相同的数据类型在已解码的行之间共享
+    private final ConcurrentMap<DataType, DataType> dataTypes = new ConcurrentHashMap<>();
+
+    private volatile FarmTable table;
+
+    /**
+     * @param data         包含整个FARM表的缓冲区，字节序已设置，内容在本对象存活期间不能改变
+     * @param codes        属性代码列
+     * @param rowPositions {@link FarmTableDecoder#scanRows} 的结果
+     */
+    public LazyFarmRows(ByteBuffer data, int[] codes, int[] rowPositions) {
+        this.data = data;
+        this.codes = codes;
+        this.maxCode = Arrays.stream(codes).max().orElse(0);
+        this.rowPositions = rowPositions;
+        this.rowTables = new AtomicReferenceArray<>(rowPositions.length - 1);
+        this.rows = new AtomicReferenceArray<>(rowPositions.length - 1);
+    }
+
+    public int getRowCount() {
+        return rows.length();
+    }
+
+    /**
+     * 已经解码的行数
+     */
+    public int getMaterializedRowCount() {
+        int count = 0;
+        for (int row = 0; row < rows.length(); row++) {
+            if (rowTables.get(row) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取一行，首次访问时解码
+     *
+     * @return 长度为 {@code maxCode + 1} 的只读列表，不存在的属性为null
+     */
+    public List<DataType> row(int row) {
+        List<DataType> rowData = rows.get(row);
+        if (rowData == null) {
+            List<DataType> decoded = decode(row);
+            rowData = rows.compareAndExchange(row, null, decoded);
+            if (rowData == null) {
+                rowData = decoded;
+            }
+        }
+        return rowData;
+    }
+
+    /**
+     * 一行的列式表，只包含第0行，首次访问时解码
+     */
+    public FarmTable rowTable(int row) {
+        FarmTable rowTable = rowTables.get(row);
+        if (rowTable == null) {
+            FarmTable decoded = decodeTable(row);
+            rowTable = rowTables.compareAndExchange(row, null, decoded);
+            if (rowTable == null) {
+                rowTable = decoded;
+            }
+        }
+        return rowTable;
+    }
+
+    /**
+     * 检查枚举代码是否有效，只解码该行，见 {@link FarmTable#isValidEnumerant(int, int, int)}
+     */
+    public boolean isValidEnumerant(int row, int attributeCode, int eeCode) {
+        FarmTable full = table;
+        if (full != null) {
+            return full.isValidEnumerant(row, attributeCode, eeCode);
+        }
+        return row >= 0 && row < rowTables.length() && rowTable(row).isValidEnumerant(0, attributeCode, eeCode);
+    }
+
+    /**
+     * 批量检查枚举代码，只解码该行，见 {@link FarmTable#isValidEnumerants(int, int, int[], int, int, boolean[])}
+     */
+    public int isValidEnumerants(int row, int attributeCode, int[] eeCodes, int from, int to, boolean[] valid) {
+        FarmTable full = table;
+        if (full != null) {
+            return full.isValidEnumerants(row, attributeCode, eeCodes, from, to, valid);
+        }
+        if (row < 0 || row >= rowTables.length()) {
+            Arrays.fill(valid, from, to, false);
+            return to - from;
+        }
+        return rowTable(row).isValidEnumerants(0, attributeCode, eeCodes, from, to, valid);
+    }
+
+    /**
+     * 旧的二维列表形式视图，按行懒解码
+     */
+    public List<List<DataType>> asList() {
+        return new AbstractList<List<DataType>>() {
+            @Override
+            public List<DataType> get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return rows.length();
+            }
+        };
+    }
+
+    /**
+     * 解码全部行构建列式表，只构建一次
+     */
+    public FarmTable toFarmTable() throws IOException {
+        FarmTable result = table;
+        if (result == null) {
+            synchronized (this) {
+                result = table;
+                if (result == null) {
+                    FarmTable.Builder builder = new FarmTable.Builder(codes, rows.length());
+                    FarmTableDecoder decoder = new FarmTableDecoder(codes);
+                    ByteBufferBinaryReader reader = reader(rowPositions[0]);
+                    for (int row = 0; row < rows.length(); row++) {
+                        decoder.decodeRow(reader, row, builder);
+                        builder.endRow();
+                    }
+                    result = builder.build();
+                    table = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<DataType> decode(int row) {
+        FarmTable single = rowTable(row);
+        DataType[] rowData = new DataType[maxCode + 1];
+        for (int entry = single.rowStart(0); entry < single.rowEnd(0); entry++) {
+            DataType dataType = single.toDataType(entry);
+            DataType shared = dataTypes.putIfAbsent(dataType, dataType);
+            rowData[single.code(entry)] = shared != null ? shared : dataType;
+        }
+        return Collections.unmodifiableList(Arrays.asList(rowData));
+    }
+
+    private FarmTable decodeTable(int row) {
+        try {
+            FarmTable.Builder builder = new FarmTable.Builder(codes, 1);
+            new FarmTableDecoder(codes).decodeRow(reader(rowPositions[row]), row, builder);
+            return builder.endRow().build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("解码FARM表第" + row + "行时出错", e);
+        }
+    }
+
+    private ByteBufferBinaryReader reader(int position) {
+        ByteBuffer view = data.duplicate().order(data.order());
+        view.position(position);
+        return new ByteBufferBinaryReader(view, data.order());
+    }
+}
@@ -1,110 +1,51 @@
 package com.onesaf.farm.util;
 
-import java.io.*;
-import java.nio.ByteBuffer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 /**
  * 二进制数据读取工具类
+ * <p>
+ * 具体实现见 {@link ByteBufferBinaryReader} 及其子类 {@link MappedBinaryReader}（内存映射文件）和 {@link ChannelBinaryReader}（分块读取通道）。
  */
-public class BinaryReader implements Closeable {
-    private final DataInputStream inputStream;
-    private final ByteOrder byteOrder;
+public abstract class BinaryReader implements Closeable {
+    protected ByteOrder byteOrder;
 
-    public BinaryReader(InputStream inputStream, ByteOrder byteOrder) {
-        this.inputStream = new DataInputStream(inputStream);
+    protected BinaryReader(ByteOrder byteOrder) {
         this.byteOrder = byteOrder;
     }
 
-    public byte readByte() throws IOException {
-        return inputStream.readByte();
+    /**
+     * 从输入流读取，替代原来的 {@code new BinaryReader(InputStream, ByteOrder)}
+     * <p>
+     * 返回分块读取的 {@link ChannelBinaryReader}，关闭读取器时关闭输入流。
+     */
+    public static BinaryReader of(InputStream inputStream, ByteOrder byteOrder) {
+        return new ChannelBinaryReader(inputStream, byteOrder);
     }
 
-    public int readUInt8() throws IOException {
-        return inputStream.readUnsignedByte();
-    }
+    public abstract byte readByte() throws IOException;
 
-    public int readUInt16() throws IOException {
-        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
-            // 首先读取两个字节
-            int b1 = inputStream.readUnsignedByte();
-            int b2 = inputStream.readUnsignedByte();
-
-            // 使用小端字节序将它们组合
-            return (b2 << 8) | b1;
-        } else {
-            // 大端字节序，直接读取无符号短整型
-            return inputStream.readUnsignedShort();
-        }
-    }
+    public abstract int readUInt8() throws IOException;
 
-    public short readInt16() throws IOException {
-        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
-            // 首先读取两个字节
-            int b1 = inputStream.readUnsignedByte();
-            int b2 = inputStream.readByte();
-
-            // 使用小端字节序将它们组合
-            return (short)((b2 << 8) | b1);
-        } else {
-            // 大端字节序，直接读取有符号短整型
-            return inputStream.readShort();
-        }
-    }
+    public abstract int readUInt16() throws IOException;
 
-    public int readInt32() throws IOException {
-        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
-            // 首先读取四个字节
-            int b1 = inputStream.readUnsignedByte();
-            int b2 = inputStream.readUnsignedByte();
-            int b3 = inputStream.readUnsignedByte();
-            int b4 = inputStream.readByte(); // 最高位可能为负
-
-            // 使用小端字节序将它们组合
-            return (b4 << 24) | (b3 << 16) | (b2 << 8) | b1;
-        } else {
-            // 大端字节序，直接读取有符号整型
-            return inputStream.readInt();
-        }
-    }
+    public abstract short readInt16() throws IOException;
 
-    public long readUInt32() throws IOException {
-        long value = inputStream.readInt() & 0xFFFFFFFFL;
-        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
-            return Integer.reverseBytes((int) value) & 0xFFFFFFFFL;
-        }
-        return value;
-    }
+    public abstract int readInt32() throws IOException;
 
-    public long readInt64() throws IOException {
-        long value = inputStream.readLong();
-        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
-            return Long.reverseBytes(value);
-        }
-        return value;
-    }
+    public abstract long readUInt32() throws IOException;
 
-    public float readFloat32() throws IOException {
-        int intBits = inputStream.readInt();
-        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
-            intBits = Integer.reverseBytes(intBits);
-        }
-        return Float.intBitsToFloat(intBits);
-    }
+    public abstract long readInt64() throws IOException;
 
-    public double readFloat64() throws IOException {
-        long longBits = inputStream.readLong();
-        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
-            longBits = Long.reverseBytes(longBits);
-        }
-        return Double.longBitsToDouble(longBits);
-    }
+    public abstract float readFloat32() throws IOException;
 
-    public boolean readBoolean() throws IOException {
-        return inputStream.readBoolean();
-    }
+    public abstract double readFloat64() throws IOException;
+
+    public abstract boolean readBoolean() throws IOException;
 
     /**
      * 读取一个字符串，格式为：
@@ -112,78 +53,37 @@ public class BinaryReader implements Closeable {
      * - 字符数据
      * - 如果长度是奇数，则有一个填充字节
      */
-    public String readString() throws IOException {
-        try {
-            // 读取字符串长度
-            int length = readUInt16();
-
-            if (length == 0) {
-                // 空字符串，但仍需要考虑可能的填充
-                return "";
-            }
-
-            if (length > 10000) {
-                // 防止异常长度导致内存问题
-                throw new IOException("字符串长度异常: " + length);
-            }
-
-            // 读取字符数据
-            byte[] bytes = new byte[length];
-            inputStream.readFully(bytes);
-
-            // 如果长度是奇数，读取一个额外的字节作为填充
-            if (length % 2 != 0) {
-                inputStream.readByte();
-            }
-
-            return new String(bytes, StandardCharsets.UTF_8);
-        } catch (EOFException e) {
-            throw new IOException("读取字符串时遇到文件结束", e);
-        } catch (Exception e) {
-            throw new IOException("读取字符串时出错: " + e.getMessage(), e);
-        }
-    }
+    public abstract String readString() throws IOException;
 
-    public UUID readUUID() throws IOException {
-        ByteBuffer buffer = ByteBuffer.allocate(16);
+    public abstract UUID readUUID() throws IOException;
 
-        // 读取16个字节
-        byte[] bytes = new byte[16];
-        inputStream.readFully(bytes);
-
-        buffer.put(bytes);
-        buffer.flip();
+    /**
+     * 跳过指定字节数
+     */
+    public abstract void skip(long bytesToSkip) throws IOException;
 
-        long mostSigBits = buffer.getLong();
-        long leastSigBits = buffer.getLong();
+    /**
+     * 从数据开头到当前读取位置的字节数
+     */
+    public abstract long bytesRead();
 
-        return new UUID(mostSigBits, leastSigBits);
+    /**
+     * 剩余可读字节数的上限，流式读取无法预知时返回 {@link Long#MAX_VALUE}
+     * <p>
+     * 用于在分配缓冲区之前检查文件中记录的数量是否可信。
+     */
+    public long remaining() {
+        return Long.MAX_VALUE;
     }
 
     public ByteOrder getByteOrder() {
         return byteOrder;
     }
 
-    @Override
-    public void close() throws IOException {
-        inputStream.close();
-    }
-
     /**
-     * 跳过指定字节数
+     * 切换后续读取使用的字节序，不改变当前读取位置
      */
-    public void skip(long bytesToSkip) throws IOException {
-        long skipped = 0;
-        while (skipped < bytesToSkip) {
-            long s = inputStream.skip(bytesToSkip - skipped);
-            if (s <= 0) {
-                break;
-            }
-            skipped += s;
-        }
-
-        if (skipped < bytesToSkip) {
-            throw new EOFException("Unexpected end of file");
-        }
+    public void setByteOrder(ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package com.onesaf.farm.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 二进制数据写入工具类，与 {@link BinaryReader} 对应
+ * <p>
+ * 数据先写入一个复用的缓冲区，缓冲区满时整块写出到输出流。多字节数值按当前字节序写入，
+ * 字符串和UUID的格式与 {@link BinaryReader#readString()}、{@link BinaryReader#readUUID()} 相同。
+ * 不是线程安全的。
+ */
+public class BinaryWriter implements Closeable, Flushable {
+    /**
+     * 默认缓冲区大小
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    // 字符串长度以UInt16存储
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private final OutputStream out;
+    private final ByteBuffer buffer;
+    private long written;
+
+    public BinaryWriter(OutputStream out, ByteOrder byteOrder) {
+        this(out, byteOrder, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BinaryWriter(OutputStream out, ByteOrder byteOrder, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("缓冲区过小: " + bufferSize);
+        }
+        this.out = out;
+        this.buffer = ByteBuffer.allocate(bufferSize).order(byteOrder);
+    }
+
+    public ByteOrder getByteOrder() {
+        return buffer.order();
+    }
+
+    /**
+     * 切换后续写入使用的字节序
+     */
+    public void setByteOrder(ByteOrder byteOrder) {
+        buffer.order(byteOrder);
+    }
+
+    /**
+     * 已写入的字节数，包括尚在缓冲区中的
+     */
+    public long position() {
+        return written + buffer.position();
+    }
+
+    public void writeByte(byte value) throws IOException {
+        ensure(1);
+        buffer.put(value);
+    }
+
+    public void writeUInt8(int value) throws IOException {
+        checkRange(value, 0, 0xFF, "UInt8");
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    public void writeUInt16(int value) throws IOException {
+        checkRange(value, 0, 0xFFFF, "UInt16");
+        ensure(2);
+        buffer.putShort((short) value);
+    }
+
+    public void writeInt16(short value) throws IOException {
+        ensure(2);
+        buffer.putShort(value);
+    }
+
+    public void writeInt32(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    public void writeUInt32(long value) throws IOException {
+        if (value < 0 || value > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("UInt32超出范围: " + value);
+        }
+        ensure(4);
+        buffer.putInt((int) value);
+    }
+
+    public void writeInt64(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    public void writeFloat32(float value) throws IOException {
+        ensure(4);
+        buffer.putFloat(value);
+    }
+
+    public void writeFloat64(double value) throws IOException {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        ensure(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * 写入一个字符串，格式为：
+     * - UInt16长度
+     * - UTF-8字符数据
+     * - 如果长度是奇数，则有一个填充字节
+     */
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeString(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 写入已是UTF-8编码的字符串，格式同 {@link #writeString(String)}
+     */
+    public void writeString(byte[] utf8, int offset, int length) throws IOException {
+        if (length > MAX_STRING_LENGTH) {
+            throw new IOException("字符串长度异常: " + length);
+        }
+        writeUInt16(length);
+        writeBytes(utf8, offset, length);
+        if ((length & 1) != 0) {
+            writeByte((byte) 0);
+        }
+    }
+
+    /**
+     * UUID按网络字节序写入，与当前字节序无关
+     */
+    public void writeUUID(UUID value) throws IOException {
+        ensure(16);
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putLong(value.getMostSignificantBits());
+        buffer.putLong(value.getLeastSignificantBits());
+        buffer.order(order);
+    }
+
+    /**
+     * 原样写入字节
+     */
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int step = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, step);
+            offset += step;
+            length -= step;
+        }
+    }
+
+    /**
+     * 把缓冲区中的内容写出到输出流
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * 写出剩余内容并关闭输出流
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (buffer.position() > 0) {
+            out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+            written += buffer.position();
+            buffer.clear();
+        }
+    }
+
+    private static void checkRange(int value, int min, int max, String type) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(type + "超出范围: " + value);
+        }
+    }
+}
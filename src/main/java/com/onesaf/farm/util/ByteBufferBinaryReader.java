@@ -0,0 +1,248 @@
+package com.onesaf.farm.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 基于 {@link ByteBuffer} 的二进制读取器
+ * <p>
+ * 字节序直接设置在缓冲区上，多字节数值由缓冲区一次取出。缓冲区中剩余字节不足时调用 {@link #fill(int)}，
+ * 默认实现表示数据已读完；分块读取的子类在其中补充数据。
+ */
+public class ByteBufferBinaryReader extends BinaryReader {
+    protected final ByteBuffer buffer;
+
+    public ByteBufferBinaryReader(ByteBuffer buffer, ByteOrder byteOrder) {
+        super(byteOrder);
+        this.buffer = buffer;
+        this.buffer.order(byteOrder);
+    }
+
+    /**
+     * 确保缓冲区中至少有指定数量的可读字节
+     */
+    protected final void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes && !fill(bytes)) {
+            throw new EOFException("Unexpected end of file");
+        }
+    }
+
+    /**
+     * 向缓冲区补充数据
+     *
+     * @param bytes 需要的可读字节数
+     * @return 补充后可读字节是否足够
+     */
+    protected boolean fill(int bytes) throws IOException {
+        return false;
+    }
+
+    /**
+     * 当前读取位置（相对于数据开头）
+     */
+    public int position() {
+        return buffer.position();
+    }
+
+    /**
+     * 从数据开头到当前读取位置的字节数，分块读取时也包括已经丢弃的块
+     */
+    @Override
+    public long bytesRead() {
+        return buffer.position();
+    }
+
+    @Override
+    public long remaining() {
+        return buffer.remaining();
+    }
+
+    /**
+     * 是否还有未读取的数据，分块读取时必要时补充数据
+     */
+    public boolean hasRemaining() throws IOException {
+        return buffer.hasRemaining() || fill(1);
+    }
+
+    /**
+     * 移动到指定读取位置（相对于数据开头）
+     *
+     * @throws IOException 分块读取时目标位置已被丢弃或超出数据末尾
+     */
+    public void position(int position) throws IOException {
+        buffer.position(position);
+    }
+
+    /**
+     * 全部数据是否都在缓冲区中，可以按位置随机访问
+     */
+    public boolean isResident() {
+        return true;
+    }
+
+    /**
+     * 返回一个数据全部驻留内存、读取位置和字节序与当前相同的读取器
+     * <p>
+     * 本类的数据已经全部在缓冲区中，直接返回自身；分块读取的子类会读入剩余的全部数据。
+     */
+    public ByteBufferBinaryReader toResident() throws IOException {
+        return this;
+    }
+
+    /**
+     * 共享内容、独立位置的缓冲区视图，字节序与当前读取器相同
+     */
+    public ByteBuffer duplicateBuffer() {
+        return buffer.duplicate().order(buffer.order());
+    }
+
+    /**
+     * 查看下一个UInt16而不移动读取位置
+     */
+    public int peekUInt16() throws IOException {
+        ensure(2);
+        return buffer.getShort(buffer.position()) & 0xFFFF;
+    }
+
+    @Override
+    public void setByteOrder(ByteOrder byteOrder) {
+        super.setByteOrder(byteOrder);
+        buffer.order(byteOrder);
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        ensure(1);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUInt8() throws IOException {
+        ensure(1);
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int readUInt16() throws IOException {
+        ensure(2);
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    @Override
+    public short readInt16() throws IOException {
+        ensure(2);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readInt32() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readUInt32() throws IOException {
+        ensure(4);
+        return buffer.getInt() & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public long readInt64() throws IOException {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat32() throws IOException {
+        ensure(4);
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double readFloat64() throws IOException {
+        ensure(8);
+        return buffer.getDouble();
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        ensure(1);
+        return buffer.get() != 0;
+    }
+
+    @Override
+    public String readString() throws IOException {
+        int length = readUInt16();
+
+        if (length == 0) {
+            return "";
+        }
+
+        if (length > 10000) {
+            // 防止异常长度导致内存问题
+            throw new IOException("字符串长度异常: " + length);
+        }
+
+        // 奇数长度后跟一个填充字节
+        int padded = length + (length & 1);
+        try {
+            ensure(padded);
+        } catch (EOFException e) {
+            throw new IOException("读取字符串时遇到文件结束", e);
+        }
+
+        if (buffer.hasArray()) {
+            // 堆缓冲区直接从底层数组解码，省去中间拷贝
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + padded);
+            return value;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        buffer.position(buffer.position() + (padded - length));
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取指定数量的字节到数组中
+     */
+    public void readBytes(byte[] destination, int offset, int length) throws IOException {
+        ensure(length);
+        buffer.get(destination, offset, length);
+    }
+
+    @Override
+    public UUID readUUID() throws IOException {
+        ensure(16);
+        // UUID按网络字节序存储，与文件字节序无关
+        long mostSigBits = buffer.getLong();
+        long leastSigBits = buffer.getLong();
+        if (buffer.order() == ByteOrder.LITTLE_ENDIAN) {
+            mostSigBits = Long.reverseBytes(mostSigBits);
+            leastSigBits = Long.reverseBytes(leastSigBits);
+        }
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    @Override
+    public void skip(long bytesToSkip) throws IOException {
+        long left = bytesToSkip;
+        while (left > 0) {
+            if (!buffer.hasRemaining()) {
+                ensure(1);
+            }
+            int step = (int) Math.min(left, buffer.remaining());
+            buffer.position(buffer.position() + step);
+            left -= step;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
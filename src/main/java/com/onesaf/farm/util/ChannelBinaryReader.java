@@ -0,0 +1,174 @@
+package com.onesaf.farm.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * 基于 {@link ReadableByteChannel} 的分块二进制读取器
+ * <p>
+ * 数据以整块读入可重复填充的缓冲区，缓冲区读空时压缩剩余字节并尽量填满，
+ * 因此流式输入（网络、压缩包、类路径资源）的读取次数与块数而不是数值个数成正比。
+ */
+public class ChannelBinaryReader extends ByteBufferBinaryReader {
+    /**
+     * 默认块大小
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private boolean endOfStream = false;
+
+    // 压缩缓冲区时丢弃的已读字节数
+    private long discarded;
+
+    public ChannelBinaryReader(ReadableByteChannel channel, ByteOrder byteOrder) {
+        this(channel, byteOrder, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ChannelBinaryReader(InputStream inputStream, ByteOrder byteOrder) {
+        this(new InputStreamChannel(inputStream), byteOrder, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ChannelBinaryReader(ReadableByteChannel channel, ByteOrder byteOrder, int blockSize) {
+        super(emptyBlock(blockSize), byteOrder);
+        this.channel = channel;
+    }
+
+    private static ByteBuffer emptyBlock(int blockSize) {
+        ByteBuffer block = ByteBuffer.allocate(blockSize);
+        block.flip();
+        return block;
+    }
+
+    @Override
+    protected boolean fill(int bytes) throws IOException {
+        if (bytes > buffer.capacity()) {
+            throw new IOException("读取请求超过块大小: " + bytes + " > " + buffer.capacity());
+        }
+
+        discarded += buffer.position();
+        buffer.compact();
+        try {
+            while (!endOfStream && buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    endOfStream = true;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+        return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public long bytesRead() {
+        return discarded + buffer.position();
+    }
+
+    /**
+     * 通道读完之前剩余长度未知
+     */
+    @Override
+    public long remaining() {
+        return endOfStream ? buffer.remaining() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isResident() {
+        return false;
+    }
+
+    /**
+     * 读入通道中剩余的全部数据，返回从当前读取位置开始的内存读取器
+     */
+    @Override
+    public ByteBufferBinaryReader toResident() throws IOException {
+        byte[] data = new byte[Math.max(buffer.capacity(), buffer.remaining() * 2)];
+        int size = buffer.remaining();
+        buffer.get(data, 0, size);
+
+        while (!endOfStream) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int read = channel.read(ByteBuffer.wrap(data, size, data.length - size));
+            if (read < 0) {
+                endOfStream = true;
+            } else {
+                size += read;
+            }
+        }
+        return new ByteBufferBinaryReader(ByteBuffer.wrap(data, 0, size).slice(), byteOrder);
+    }
+
+    /**
+     * 当前读取位置（相对于数据开头），包括已经丢弃的块
+     */
+    @Override
+    public int position() {
+        return Math.toIntExact(bytesRead());
+    }
+
+    /**
+     * 向前跳到指定读取位置，跨块时逐块读入并丢弃
+     * <p>
+     * 已丢弃的块无法找回，因此不支持向后移动；需要随机访问时先调用 {@link #toResident()}。
+     */
+    @Override
+    public void position(int position) throws IOException {
+        long skip = position - bytesRead();
+        if (skip < 0) {
+            throw new IOException("分块读取器不能向后移动: " + position + " < " + bytesRead());
+        }
+        while (skip > buffer.remaining()) {
+            skip -= buffer.remaining();
+            buffer.position(buffer.limit());
+            if (!fill(1)) {
+                throw new EOFException("Unexpected end of file");
+            }
+        }
+        buffer.position(buffer.position() + (int) skip);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 直接读入堆缓冲区底层数组的输入流通道，避免 {@link java.nio.channels.Channels#newChannel(InputStream)} 的8KB中转
+     */
+    private static final class InputStreamChannel implements ReadableByteChannel {
+        private final InputStream inputStream;
+        private boolean open = true;
+
+        InputStreamChannel(InputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int read = inputStream.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (read > 0) {
+                dst.position(dst.position() + read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            inputStream.close();
+        }
+    }
+}
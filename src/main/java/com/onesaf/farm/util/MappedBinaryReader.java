@@ -0,0 +1,50 @@
+package com.onesaf.farm.util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射文件的二进制读取器
+ * <p>
+ * 整个文件通过 {@link FileChannel#map} 映射为一个 {@link MappedByteBuffer}，字节序直接设置在缓冲区上，
+ * 多字节数值由缓冲区一次取出，不再逐字节调用流。
+ */
+public class MappedBinaryReader extends ByteBufferBinaryReader {
+    private final FileChannel channel;
+
+    private MappedBinaryReader(FileChannel channel, MappedByteBuffer buffer, ByteOrder byteOrder) {
+        super(buffer, byteOrder);
+        this.channel = channel;
+    }
+
+    /**
+     * 以只读方式映射整个文件
+     *
+     * @param path      文件路径
+     * @param byteOrder 初始字节序
+     * @return 读取器，位置位于文件开头
+     */
+    public static MappedBinaryReader open(Path path, ByteOrder byteOrder) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("文件过大，无法映射: " + path + " (" + size + "字节)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MappedBinaryReader(channel, buffer, byteOrder);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
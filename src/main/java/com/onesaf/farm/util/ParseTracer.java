@@ -0,0 +1,162 @@
+package com.onesaf.farm.util;
+
+/**
+ * 记录最近若干个解析事件的环形缓冲区
+ * <p>
+ * 每个事件由类型、所在字节位置和最多四个整数字段组成，分别存放在预先分配的基本类型数组中，
+ * 记录事件不分配对象、不装箱，也不检查日志级别，可以放在逐个单元格的循环里。缓冲区满后覆盖最早的事件。
+ * 只在解析失败或调用方需要时才用 {@link #dump()} 格式化。实例不是线程安全的。
+ * <p>
+ * 各事件类型的字段：
+ * <ul>
+ *     <li>{@link #SECTION}：段号（{@code SECTION_*}）</li>
+ *     <li>{@link #CELL}：行、列、属性代码、数据类型</li>
+ *     <li>{@link #LABEL}：序号、标签字节数、几何类型、特征类别</li>
+ *     <li>{@link #FEATURE}：映射键、特征代码、几何类型、覆盖大小</li>
+ *     <li>{@link #ATTRIBUTE}：映射键、属性代码、数据类型、单位</li>
+ * </ul>
+ */
+public final class ParseTracer {
+    public static final int SECTION = 0;
+    public static final int CELL = 1;
+    public static final int LABEL = 2;
+    public static final int FEATURE = 3;
+    public static final int ATTRIBUTE = 4;
+
+    public static final int SECTION_HEADER = 0;
+    public static final int SECTION_TABLE = 1;
+    public static final int SECTION_LABELS = 2;
+    public static final int SECTION_FEATURES = 3;
+    public static final int SECTION_ATTRIBUTES = 4;
+
+    private static final String[] KIND_NAMES = {"SECTION", "CELL", "LABEL", "FEATURE", "ATTRIBUTE"};
+    private static final String[] SECTION_NAMES = {"HEADER", "TABLE", "LABELS", "FEATURES", "ATTRIBUTES"};
+
+    private final int mask;
+    private final byte[] kinds;
+    private final long[] positions;
+    private final int[] first;
+    private final int[] second;
+    private final int[] third;
+    private final int[] fourth;
+
+    // 已记录的事件总数，包括已被覆盖的
+    private long count;
+
+    /**
+     * @param capacity 保留的事件数，向上取为2的幂
+     */
+    public ParseTracer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("事件容量超出范围: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(1, size);
+        this.mask = size - 1;
+        this.kinds = new byte[size];
+        this.positions = new long[size];
+        this.first = new int[size];
+        this.second = new int[size];
+        this.third = new int[size];
+        this.fourth = new int[size];
+    }
+
+    /**
+     * 记录一个事件
+     *
+     * @param position 事件数据在文件中的起始字节位置
+     */
+    public void record(int kind, long position, int a, int b, int c, int d) {
+        int slot = (int) count++ & mask;
+        kinds[slot] = (byte) kind;
+        positions[slot] = position;
+        first[slot] = a;
+        second[slot] = b;
+        third[slot] = c;
+        fourth[slot] = d;
+    }
+
+    /**
+     * 记录进入一个文件段
+     */
+    public void section(int section, long position) {
+        record(SECTION, position, section, 0, 0, 0);
+    }
+
+    /**
+     * 缓冲区能保留的事件数
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 已记录的事件总数，包括已被覆盖的
+     */
+    public long getEventCount() {
+        return count;
+    }
+
+    /**
+     * 当前保留的事件数
+     */
+    public int size() {
+        return (int) Math.min(count, mask + 1);
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * 按时间顺序格式化保留的事件，每行一个
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder(size() * 64);
+        dump(out);
+        return out.toString();
+    }
+
+    public void dump(StringBuilder out) {
+        int size = size();
+        out.append("最近").append(size).append("个解析事件（共").append(count).append("个）:");
+        for (long sequence = count - size; sequence < count; sequence++) {
+            int slot = (int) sequence & mask;
+            out.append('\n').append('#').append(sequence)
+                    .append(" @").append(positions[slot])
+                    .append(' ').append(kindName(kinds[slot])).append(' ');
+            appendFields(out, kinds[slot], first[slot], second[slot], third[slot], fourth[slot]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParseTracer(capacity=" + getCapacity() + ", events=" + count + ")";
+    }
+
+    private static void appendFields(StringBuilder out, int kind, int a, int b, int c, int d) {
+        switch (kind) {
+            case SECTION:
+                out.append(a >= 0 && a < SECTION_NAMES.length ? SECTION_NAMES[a] : String.valueOf(a));
+                break;
+            case CELL:
+                out.append("行=").append(a).append(" 列=").append(b).append(" 代码=").append(c).append(" 数据类型=").append(d);
+                break;
+            case LABEL:
+                out.append("序号=").append(a).append(" 长度=").append(b).append(" 几何类型=").append(c).append(" 类别=").append(d);
+                break;
+            case FEATURE:
+                out.append("键=").append(a).append(" 代码=").append(b).append(" 几何类型=").append(c).append(" 覆盖大小=").append(d);
+                break;
+            case ATTRIBUTE:
+                out.append("键=").append(a).append(" 代码=").append(b).append(" 数据类型=").append(c).append(" 单位=").append(d);
+                break;
+            default:
+                out.append(a).append(' ').append(b).append(' ').append(c).append(' ').append(d);
+        }
+    }
+
+    private static String kindName(int kind) {
+        return kind >= 0 && kind < KIND_NAMES.length ? KIND_NAMES[kind] : String.valueOf(kind);
+    }
+}